@@ -0,0 +1,138 @@
+/*
+
+ * ModelComparison
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.content.Context;
+
+import com.google.android.gms.tasks.Tasks;
+
+import org.opencv.core.Mat;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Vergleicht das quantisierte Model mit dem float Model auf denselben Zellen. Gezählt werden die
+ * Zellen, in denen beide Models dieselbe Zahl erkennen, die Genauigkeit beider Models gegenüber
+ * bekannten Zahlen, die mittlere Abweichung der Sicherheit und die Laufzeit pro Batch.
+ * Jede Zelle zählt, auch leere. Eine Zahl, die ein Model als leer erkennt, ist damit ein Fehler.
+ * Die Methoden blockieren und dürfen nicht im UI-Thread aufgerufen werden.
+ */
+class ModelComparison {
+
+    private static final int CELLS = 81;
+
+    private final DigitClassifier floatClassifier, quantizedClassifier;
+
+    private final int[] floatDigits, quantizedDigits;
+    private final float[] floatConfidences, quantizedConfidences;
+
+    private int cells, agreed, floatCorrect, quantizedCorrect, labelled, bothRecognized;
+    private double confidenceDelta;
+    private long floatNanos, quantizedNanos;
+
+    ModelComparison(Context context) {
+        this.floatClassifier = new DigitClassifier(context, DigitClassifier.FLOAT_MODEL);
+        this.quantizedClassifier = new DigitClassifier(context, DigitClassifier.QUANTIZED_MODEL);
+
+        this.floatDigits = new int[CELLS];
+        this.quantizedDigits = new int[CELLS];
+        this.floatConfidences = new float[CELLS];
+        this.quantizedConfidences = new float[CELLS];
+    }
+
+    /**
+     * Lädt beide Models und wartet, bis sie bereit sind.
+     */
+    void initialize() throws ExecutionException, InterruptedException {
+        Tasks.await(floatClassifier.initialize());
+        Tasks.await(quantizedClassifier.initialize());
+    }
+
+    /**
+     * Klassifiziert ein Sudoku mit beiden Models und addiert das Ergebnis zur Statistik.
+     *
+     * @param cells    Bilder der Zellen (index = row * 9 + col), null oder schwarz für leere Zellen
+     * @param expected Richtige Zahl jeder Zelle (0 für leere Zellen) oder null, wenn unbekannt
+     */
+    void compare(Mat[] cells, int[] expected) {
+        long start = System.nanoTime();
+        floatClassifier.classifyBatch(cells, floatDigits, floatConfidences);
+        floatNanos += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        quantizedClassifier.classifyBatch(cells, quantizedDigits, quantizedConfidences);
+        quantizedNanos += System.nanoTime() - start;
+
+        for (int i = 0; i < CELLS; i++) {
+            this.cells++;
+            if (floatDigits[i] == quantizedDigits[i]) {
+                agreed++;
+            }
+            // Leere Zellen haben bei beiden Models die Sicherheit 0 und würden den Mittelwert senken
+            if (floatDigits[i] != 0 && floatDigits[i] == quantizedDigits[i]) {
+                bothRecognized++;
+                confidenceDelta += Math.abs(floatConfidences[i] - quantizedConfidences[i]);
+            }
+            if (expected != null) {
+                labelled++;
+                if (floatDigits[i] == expected[i]) {
+                    floatCorrect++;
+                }
+                if (quantizedDigits[i] == expected[i]) {
+                    quantizedCorrect++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Anteil der Zellen, in denen beide Models dieselbe Zahl erkennen
+     */
+    float getAgreement() {
+        return cells > 0 ? (float) agreed / cells : 1;
+    }
+
+    /**
+     * @return Anteil der bekannten Zellen, die das float Model richtig erkennt
+     */
+    float getFloatAccuracy() {
+        return labelled > 0 ? (float) floatCorrect / labelled : 0;
+    }
+
+    /**
+     * @return Anteil der bekannten Zellen, die das quantisierte Model richtig erkennt
+     */
+    float getQuantizedAccuracy() {
+        return labelled > 0 ? (float) quantizedCorrect / labelled : 0;
+    }
+
+    /**
+     * @return Zusammenfassung aller bisher verglichenen Zellen
+     */
+    String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("cells=").append(cells)
+                .append(", agreement=").append(getAgreement())
+                .append(", meanConfidenceDelta=")
+                .append(bothRecognized > 0 ? confidenceDelta / bothRecognized : 0)
+                .append(", floatMs=").append(floatNanos / 1000000)
+                .append(", quantizedMs=").append(quantizedNanos / 1000000);
+        if (labelled > 0) {
+            report.append(", floatAccuracy=").append(getFloatAccuracy())
+                    .append(", quantizedAccuracy=").append(getQuantizedAccuracy());
+        }
+        return report.toString();
+    }
+
+    void close() {
+        floatClassifier.close();
+        quantizedClassifier.close();
+    }
+}
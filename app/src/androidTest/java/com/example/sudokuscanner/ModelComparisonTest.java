@@ -0,0 +1,112 @@
+package com.example.sudokuscanner;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Vergleicht das quantisierte Model mit dem float Model auf gezeichneten Zellen mit bekannten
+ * Zahlen. Wird übersprungen, solange tmnist_int8.tflite nicht in den assets liegt.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelComparisonTest {
+
+    private static final String TAG = "ModelComparisonTest";
+    private static final int CELLS = 81;
+    private static final int CELL_SIZE = 28;
+
+    private ModelComparison comparison;
+    private Mat[] cells;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String[] assets = context.getAssets().list("");
+        assumeTrue(assets != null && Arrays.asList(assets).contains(DigitClassifier.QUANTIZED_MODEL));
+        assertTrue(OpenCVLoader.initDebug());
+
+        comparison = new ModelComparison(context);
+        comparison.initialize();
+        cells = new Mat[CELLS];
+    }
+
+    @After
+    public void tearDown() {
+        if (comparison != null) {
+            comparison.close();
+        }
+        if (cells != null) {
+            for (Mat cell : cells) {
+                if (cell != null) {
+                    cell.release();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void quantizedModel_matchesFloatModelOnLabelledCells() {
+        // Jede Zahl kommt in fett und normal vor, jede zehnte Zelle bleibt leer
+        int[] expected = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            expected[i] = i % 10;
+            cells[i] = drawCell(expected[i], i % 20 < 10 ? Typeface.DEFAULT_BOLD : Typeface.DEFAULT);
+        }
+
+        comparison.compare(cells, expected);
+        Log.d(TAG, comparison.getReport());
+
+        assertTrue(comparison.getReport(), comparison.getAgreement() >= 0.95f);
+        assertTrue(comparison.getReport(),
+                comparison.getQuantizedAccuracy() >= comparison.getFloatAccuracy() - 0.02f);
+    }
+
+    /**
+     * Zeichnet eine Zahl weiß auf schwarz wie nach preprocessCell().
+     *
+     * @param digit Zahl von 1-9, 0 für eine leere Zelle
+     */
+    private static Mat drawCell(int digit, Typeface typeface) {
+        Bitmap bitmap = Bitmap.createBitmap(CELL_SIZE, CELL_SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.BLACK);
+        if (digit != 0) {
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setColor(Color.WHITE);
+            paint.setTypeface(typeface);
+            paint.setTextSize(22);
+            paint.setTextAlign(Paint.Align.CENTER);
+            float baseline = CELL_SIZE / 2f - (paint.descent() + paint.ascent()) / 2;
+            canvas.drawText(String.valueOf(digit), CELL_SIZE / 2f, baseline, paint);
+        }
+
+        Mat rgba = new Mat();
+        Utils.bitmapToMat(bitmap, rgba);
+        bitmap.recycle();
+        Mat gray = new Mat();
+        Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+        rgba.release();
+        return gray;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.sudokuscanner;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für die Zeitüberschreitung im SolveExecutor. Mit einem Zeitbudget von 0 ms endet die Suche
+ * nach der ersten Zeitscheibe von 10000 Knoten, die nicht mit einer Lösung endet.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SolveExecutorTest {
+
+    // Schweres, eindeutig lösbares Sudoku, die erste Lösung liegt nach mehr als 10000 Knoten
+    private static final String HARD =
+            "8........" + "..36....." + ".7..9.2.." +
+            ".5...7..." + "....457.." + "...1...3." +
+            "..1....68" + "..85...1." + ".9....4..";
+    // HARD mit der 3 aus der Lösung in Zelle (2,8): die erste Lösung liegt in der ersten
+    // Zeitscheibe, um die zweite auszuschließen, braucht die Suche mehr als eine weitere
+    private static final String HARD_WITH_HINT =
+            "8........" + "..36....." + ".7..9.2.3" +
+            ".5...7..." + "....457.." + "...1...3." +
+            "..1....68" + "..85...1." + ".9....4..";
+    private static final String HARD_SOLUTION =
+            "812753649" + "943682175" + "675491283" +
+            "154237896" + "369845721" + "287169534" +
+            "521974368" + "438526917" + "796318452";
+
+    private SolveExecutor solveExecutor;
+
+    @Before
+    public void setUp() {
+        solveExecutor = new SolveExecutor(3000);
+    }
+
+    @After
+    public void tearDown() {
+        solveExecutor.close();
+    }
+
+    private SolveExecutor.SolveResult solve(String board) throws Exception {
+        return Tasks.await(solveExecutor.solve(board(board), 2), 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void solve_withinBudget_isComplete() throws Exception {
+        SolveExecutor.SolveResult result = solve(HARD);
+        assertFalse(result.isTimedOut());
+        assertEquals(1, result.getSolutionCount());
+        assertArrayEquals(cells(HARD_SOLUTION), result.getFirstSolution());
+    }
+
+    @Test
+    public void timeout_beforeFirstSolution_findsNothing() throws Exception {
+        solveExecutor.setTimeBudgetMillis(0);
+        SolveExecutor.SolveResult result = solve(HARD);
+        assertTrue(result.isTimedOut());
+        assertEquals(0, result.getSolutionCount());
+        assertNull(result.getFirstSolution());
+    }
+
+    @Test
+    public void timeout_afterFirstSolution_keepsItButIsNotUnique() throws Exception {
+        solveExecutor.setTimeBudgetMillis(0);
+        SolveExecutor.SolveResult result = solve(HARD_WITH_HINT);
+        assertTrue(result.isTimedOut());
+        assertEquals(1, result.getSolutionCount());
+        assertArrayEquals(cells(HARD_SOLUTION), result.getFirstSolution());
+
+        GameLogic game = new GameLogic();
+        game.setSudokuBoard(board(HARD_WITH_HINT));
+        game.setSolutions(result.getSolutionCount(), result.getFirstSolution(),
+                result.getSecondSolution(), !result.isTimedOut());
+        assertTrue(game.isSolutionReady());
+        assertFalse(game.isUnique());
+    }
+
+    private static int[] cells(String board) {
+        int[] cells = new int[81];
+        for (int i = 0; i < 81; i++) {
+            char c = board.charAt(i);
+            cells[i] = c == '.' ? 0 : c - '0';
+        }
+        return cells;
+    }
+
+    private static PackedBoard board(String board) {
+        PackedBoard packed = new PackedBoard();
+        packed.setCells(cells(board));
+        return packed;
+    }
+}
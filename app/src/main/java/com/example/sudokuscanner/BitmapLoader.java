@@ -0,0 +1,126 @@
+/*
+
+ * BitmapLoader
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lädt Bilder aus der Galerie oder von der Kamera in einer begrenzten Arbeitsauflösung. Fotos mit
+ * 12-50 MP würden in voller Auflösung 50-200 MB als ARGB_8888 Bitmap belegen, für die Analyse
+ * reichen aber etwa MAX_IMAGE_SIZE Pixel auf der längeren Seite. Zuerst werden nur die Maße
+ * gelesen, danach wird das Bild direkt mit passendem inSampleSize dekodiert. Die EXIF Orientierung
+ * wird nicht auf das Bild angewendet, sondern erst bei der Analyse mit Core.rotate.
+ */
+public class BitmapLoader {
+
+    private static final String TAG = "BitmapLoader";
+
+    // Maximale Länge der längeren Bildseite nach dem Dekodieren
+    public static final int MAX_IMAGE_SIZE = 2048;
+    // Maximale Länge der längeren Seite der Vorschau
+    public static final int PREVIEW_SIZE = 1024;
+
+    private BitmapLoader() {
+    }
+
+    /**
+     * Liest zuerst nur die Maße des Bildes und dekodiert es dann mit der kleinsten Zweierpotenz
+     * als inSampleSize, bei der die längere Seite höchstens maxSize Pixel hat.
+     *
+     * @param resolver ContentResolver der Aktivität
+     * @param uri      Uri des Bildes
+     * @param maxSize  Maximale Länge der längeren Seite in Pixeln
+     * @return Bild in der Orientierung der Datei oder null, wenn es nicht dekodiert werden konnte
+     */
+    public static Bitmap decodeSampled(ContentResolver resolver, Uri uri, int maxSize)
+            throws FileNotFoundException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(resolver, uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int longSide = Math.max(options.outWidth, options.outHeight);
+        int sampleSize = 1;
+        while (longSide / sampleSize > maxSize) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = decode(resolver, uri, options);
+        if (bitmap != null) {
+            Log.d(TAG, "Decoded " + options.outWidth + "x" + options.outHeight + " from "
+                    + longSide + "px with inSampleSize " + sampleSize);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap decode(ContentResolver resolver, Uri uri, BitmapFactory.Options options)
+            throws FileNotFoundException {
+        try (InputStream stream = resolver.openInputStream(uri)) {
+            return BitmapFactory.decodeStream(stream, null, options);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            // Fehler beim Schließen des Streams, das Bild wurde bereits gelesen
+            Log.w(TAG, "Error closing image stream", e);
+            return null;
+        }
+    }
+
+    /**
+     * Liest anhand der Exif Daten aus, ob ein Bild rotiert ist.
+     *
+     * @return Gradzahl um die das Bild rotiert werden muss, damit es gerade ausgerichtet ist.
+     */
+    public static int readRotation(ContentResolver resolver, Uri uri) throws IOException {
+        try (InputStream stream = resolver.openInputStream(uri)) {
+            ExifInterface ei = new ExifInterface(stream);
+            int orientation = ei.getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_UNDEFINED);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Dreht eine Bitmap um den angegebenen Winkel. Nur für die kleine Vorschau gedacht.
+     *
+     * @param bitmap Bild, bleibt unverändert
+     * @param angle  Winkel im Uhrzeigersinn
+     * @return Neue, rotierte Bitmap
+     */
+    public static Bitmap rotate(Bitmap bitmap, int angle) {
+        Matrix matrix = new Matrix();
+        matrix.postRotate(angle);
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+}
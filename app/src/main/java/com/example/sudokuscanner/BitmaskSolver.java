@@ -0,0 +1,228 @@
+/*
+
+ * BitmaskSolver
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Diese Klasse löst ein Sudoku mit Backtracking über Bitmasken. Für jede Reihe, Spalte und Box
+ * wird in einem int gespeichert, welche Zahlen bereits vergeben sind (Bit 0 = Zahl 1 usw.).
+ * Dadurch lassen sich die Kandidaten einer Zelle mit zwei Oder-Verknüpfungen bestimmen, statt wie
+ * in isSafe() Reihe, Spalte und Box jedes Mal neu abzusuchen.
+ * Bevor geraten wird, löst der ConstraintPropagator alle Zellen, die sich logisch herleiten lassen.
+ * Danach wird immer die Zelle mit den wenigsten Kandidaten besetzt (MRV). Alle Arrays werden
+ * einmalig im Konstruktor angelegt, sodass ein Lösungsvorgang keine Objekte erzeugt.
+ */
+public class BitmaskSolver implements SudokuSolver {
+
+    private static final String TAG = "BitmaskSolver";
+
+    private static final int N = 9;
+    private static final int CELLS = N * N;
+
+    // Bitmaske mit allen Zahlen von 1-9
+    static final int ALL_DIGITS = 0x1FF;
+
+    // Reihe, Spalte und Box zu jedem Zellenindex (index = row * 9 + col)
+    static final int[] ROW_OF = new int[CELLS];
+    static final int[] COL_OF = new int[CELLS];
+    static final int[] BOX_OF = new int[CELLS];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            ROW_OF[i] = i / N;
+            COL_OF[i] = i % N;
+            BOX_OF[i] = (ROW_OF[i] / 3) * 3 + COL_OF[i] / 3;
+        }
+    }
+
+    final int[] cells;
+    private final int[] rowUsed, colUsed, boxUsed;
+
+    // Indizes der leeren Zellen. Die ersten "depth" Einträge sind während der Suche besetzt.
+    final int[] emptyCells;
+    int emptyCount;
+
+    int solutionCount;
+    private int solutionLimit;
+    final int[][] solutions;
+
+    // Von der Propagation übrig gelassene Kandidaten jeder Zelle
+    private final int[] allowed;
+    private final ConstraintPropagator propagator;
+
+    public BitmaskSolver() {
+        cells = new int[CELLS];
+        rowUsed = new int[N];
+        colUsed = new int[N];
+        boxUsed = new int[N];
+        emptyCells = new int[CELLS];
+        emptyCount = 0;
+        solutions = new int[STORED_SOLUTIONS][CELLS];
+        allowed = new int[CELLS];
+        propagator = new ConstraintPropagator();
+    }
+
+    @Override
+    public boolean solve(PackedBoard board) {
+        if (!load(board) || !startSearch(1)) {
+            return false;
+        }
+
+        board.setCells(cells);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(PackedBoard board, int limit) {
+        if (limit <= 0 || !load(board)) {
+            return 0;
+        }
+        startSearch(limit);
+        return solutionCount;
+    }
+
+    @Override
+    public int[] getSolution(int index) {
+        return solutions[index];
+    }
+
+    /**
+     * Startet die Suche und setzt den Lösungszähler zurück.
+     *
+     * @param limit Anzahl der Lösungen, nach denen die Suche abbricht
+     * @return true, wenn limit Lösungen gefunden wurden
+     */
+    private boolean startSearch(int limit) {
+        solutionCount = 0;
+        solutionLimit = limit;
+        return search(0);
+    }
+
+    /**
+     * Liest das Sudoku Feld ein und löst mit dem ConstraintPropagator zunächst alles, was ohne
+     * Raten gelöst werden kann. Die übrigen Zellen werden in die Bitmasken übernommen, die von der
+     * Propagation gestrichenen Kandidaten bleiben in allowed erhalten.
+     *
+     * @param board Sudoku Feld
+     * @return false, wenn das Feld keine Lösung haben kann
+     */
+    boolean load(PackedBoard board) {
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = board.get(i);
+        }
+
+        if (!propagator.load(cells) || !propagator.propagate()) {
+            return false;
+        }
+
+        for (int i = 0; i < N; i++) {
+            rowUsed[i] = 0;
+            colUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+        emptyCount = 0;
+
+        for (int i = 0; i < CELLS; i++) {
+            int num = propagator.getValue(i);
+            if (num == 0) {
+                cells[i] = 0;
+                allowed[i] = propagator.getCandidates(i);
+                emptyCells[emptyCount++] = i;
+            } else {
+                place(i, 1 << (num - 1));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Besetzt rekursiv die leeren Zellen ab der Position depth in emptyCells. Die Rekursionstiefe
+     * ist durch die Anzahl der leeren Zellen begrenzt. Wurde das Limit an Lösungen erreicht, bleibt
+     * die zuletzt gefundene Lösung in cells stehen.
+     *
+     * @param depth Anzahl der bereits besetzten leeren Zellen
+     * @return true, wenn das Limit an Lösungen erreicht wurde
+     */
+    private boolean search(int depth) {
+        if (depth == emptyCount) {
+            if (solutionCount < STORED_SOLUTIONS) {
+                System.arraycopy(cells, 0, solutions[solutionCount], 0, CELLS);
+            }
+            solutionCount++;
+            return solutionCount >= solutionLimit;
+        }
+
+        int candidates = selectCell(depth);
+        int cell = emptyCells[depth];
+
+        while (candidates != 0) {
+            int bit = candidates & -candidates;
+            candidates ^= bit;
+
+            place(cell, bit);
+            if (search(depth + 1)) {
+                return true;
+            }
+            remove(cell, bit);
+        }
+        return false;
+    }
+
+    /**
+     * Sucht unter den noch leeren Zellen ab Position depth die Zelle mit den wenigsten Kandidaten
+     * und tauscht sie in emptyCells an die Position depth.
+     *
+     * @param depth Anzahl der bereits besetzten leeren Zellen
+     * @return Kandidaten der gewählten Zelle, 0 wenn eine Zelle keine Kandidaten mehr hat
+     */
+    int selectCell(int depth) {
+        int best = depth;
+        int bestCandidates = 0;
+        int bestCount = N + 1;
+        for (int i = depth; i < emptyCount; i++) {
+            int candidates = candidates(emptyCells[i]);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                best = i;
+                bestCandidates = candidates;
+                bestCount = count;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+
+        int cell = emptyCells[best];
+        emptyCells[best] = emptyCells[depth];
+        emptyCells[depth] = cell;
+        return bestCandidates;
+    }
+
+    /**
+     * @param cell Zellenindex
+     * @return Bitmaske der Zahlen, die in der Zelle ohne Konflikt plaziert werden können
+     */
+    private int candidates(int cell) {
+        return allowed[cell] & ~(rowUsed[ROW_OF[cell]] | colUsed[COL_OF[cell]] | boxUsed[BOX_OF[cell]]);
+    }
+
+    void place(int cell, int bit) {
+        cells[cell] = Integer.numberOfTrailingZeros(bit) + 1;
+        rowUsed[ROW_OF[cell]] |= bit;
+        colUsed[COL_OF[cell]] |= bit;
+        boxUsed[BOX_OF[cell]] |= bit;
+    }
+
+    void remove(int cell, int bit) {
+        cells[cell] = 0;
+        rowUsed[ROW_OF[cell]] &= ~bit;
+        colUsed[COL_OF[cell]] &= ~bit;
+        boxUsed[BOX_OF[cell]] &= ~bit;
+    }
+}
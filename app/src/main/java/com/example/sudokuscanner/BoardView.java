@@ -38,11 +38,15 @@ public class BoardView extends View {
     private final int digitColor;
     private final int highlightCellsColor;
     private final int highlightDigitColor;
+    private final int ambiguousCellColor;
+    private final int conflictDigitColor;
 
     private final Paint gridLinePaint;
     private final Paint highlightCellsPaint;
     private final Paint highlightDigitsPaint;
     private final Paint digitPaint;
+    private final Paint ambiguousCellPaint;
+    private final Paint conflictDigitPaint;
 
     private final Rect digitBounds;
 
@@ -67,6 +71,8 @@ public class BoardView extends View {
             highlightCellsColor = attributes.getColor(R.styleable.SudokuBoard_highlightCellsColor, 0);
             digitColor = attributes.getColor(R.styleable.SudokuBoard_digitColor, 0);
             highlightDigitColor = attributes.getColor(R.styleable.SudokuBoard_highlightDigitColor, 0);
+            ambiguousCellColor = attributes.getColor(R.styleable.SudokuBoard_ambiguousCellColor, 0);
+            conflictDigitColor = attributes.getColor(R.styleable.SudokuBoard_conflictDigitColor, 0);
         } finally {
             attributes.recycle();
         }
@@ -75,6 +81,8 @@ public class BoardView extends View {
         highlightCellsPaint = new Paint();
         highlightDigitsPaint = new Paint();
         digitPaint = new Paint();
+        ambiguousCellPaint = new Paint();
+        conflictDigitPaint = new Paint();
         digitBounds = new Rect();
 
         game = new GameLogic();
@@ -126,6 +134,17 @@ public class BoardView extends View {
         digitPaint.setColor(digitColor);
         digitPaint.setAntiAlias(true);
 
+        // Attribute, zum markieren von Zellen mit mehreren möglichen Lösungen
+        ambiguousCellPaint.setStyle(Paint.Style.FILL);
+        ambiguousCellPaint.setColor(ambiguousCellColor);
+        ambiguousCellPaint.setAntiAlias(true);
+
+        // Attribute, zum zeichnen von Zahlen, die in ihrer Reihe, Spalte oder Box doppelt vorkommen
+        conflictDigitPaint.setStyle(Paint.Style.FILL);
+        conflictDigitPaint.setColor(conflictDigitColor);
+        conflictDigitPaint.setAntiAlias(true);
+
+        drawAmbiguousCells(canvas);
         highlightCells(canvas, game.getSelectedRow(), game.getSelectedCol());
         canvas.drawRoundRect(0, 0, boardSize, boardSize, ROUNDVALUE, ROUNDVALUE, gridLinePaint);
         drawGridLines(canvas);
@@ -154,6 +173,27 @@ public class BoardView extends View {
         invalidate();
     }
 
+    /**
+     * Markiert alle Zellen, in denen sich die ersten beiden gefundenen Lösungen unterscheiden. Dort
+     * wurde das Sudoku vermutlich falsch eingelesen.
+     *
+     * @param canvas Canvas aus der Methode onDraw()
+     */
+    private void drawAmbiguousCells(Canvas canvas) {
+        if (game.isUnique()) {
+            return;
+        }
+
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                if (game.isAmbiguousCell(row, col)) {
+                    canvas.drawRect(col * cellSize, row * cellSize, (col + 1) * cellSize,
+                            (row + 1) * cellSize, ambiguousCellPaint);
+                }
+            }
+        }
+    }
+
     /**
      * Führt Aktion aus, wenn der Benutzer auf den View tippt.
      *
@@ -179,21 +219,26 @@ public class BoardView extends View {
     }
 
     /**
-     * Zeichnet Zahlen aus einem 9x9 Array in die dem jeweiligen Index entsprechenden Zellen.
+     * Zeichnet Zahlen aus einem 9x9 Array in die dem jeweiligen Index entsprechenden Zellen. Zahlen,
+     * die in ihrer Reihe, Spalte oder Box doppelt vorkommen, werden in der Konfliktfarbe gezeichnet.
      *
      * @param canvas Canvas aus der onDraw() Methode
      */
     private void drawNumbers(Canvas canvas) {
         digitPaint.setTextSize(cellSize - 30);
+        conflictDigitPaint.setTextSize(cellSize - 30);
+        boolean hasConflicts = game.getConflictCount() > 0;
 
         for (int row = 0; row < N; row++) {
             for (int col = 0; col < N; col++) {
                 // Lese die Zahl an dem index aus dem Spielfeld Zellenarray aus
-                int digit = game.getSudokuBoard()[row][col];
+                int digit = game.getSudokuBoard().get(row, col);
 
                 // Wenn die Zahl 0 ist, zeichne nichts. Andernfalls Zeichne die Zahl
                 if (digit != 0) {
                     String digitString = Integer.toString(digit);
+                    Paint paint = hasConflicts && game.isConflictCell(row, col)
+                            ? conflictDigitPaint : digitPaint;
 
                     // Bestimme die Dimension des Strings
                     digitPaint.getTextBounds(digitString, 0, digitString.length(), digitBounds);
@@ -204,7 +249,7 @@ public class BoardView extends View {
                     // Berechne die exakten Koordinaten, damit die Ziffer zentriert in einder Zelle
                     // gezeichnet wird.
                     canvas.drawText(digitString, (col * cellSize) + ((cellSize - width) / 2),
-                            (row * cellSize + cellSize) - (cellSize - height) / 2, digitPaint);
+                            (row * cellSize + cellSize) - (cellSize - height) / 2, paint);
                 }
             }
         }
@@ -226,7 +271,7 @@ public class BoardView extends View {
         // Aktiviert, wenn auf eine valide Zelle getippt wurde
         if (game.getSelectedCol() != -1 && game.getSelectedRow() != -1) {
             try {
-                int cellContent = game.getSudokuBoard()[row - 1][col - 1];
+                int cellContent = game.getSudokuBoard().get(row - 1, col - 1);
 
                 // Wenn auf eine leere Zelle getippt wird...
                 if (cellContent == 0) {
@@ -246,7 +291,7 @@ public class BoardView extends View {
                     // zeichne einen Kreis
                     for (int r = 0; r < N; r++) {
                         for (int c = 0; c < N; c++) {
-                            if (game.getSudokuBoard()[r][c] == cellContent) {
+                            if (game.getSudokuBoard().get(r, c) == cellContent) {
                                 canvas.drawCircle(c * cellSize + cellSize / 2, r * cellSize + cellSize / 2,
                                         cellSize / 2 - 4, highlightCellsPaint);
                             }
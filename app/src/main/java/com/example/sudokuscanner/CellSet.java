@@ -0,0 +1,76 @@
+/*
+
+ * CellSet
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Menge von Zellenindizes (0-80) mit Einfügen, Entfernen, Enthaltensein und Zugriff auf ein
+ * beliebiges Element in konstanter Zeit. Die Zellen liegen dicht gepackt in cells, positions
+ * merkt sich für jede Zelle ihre Stelle in cells (-1 wenn nicht enthalten). Beim Entfernen wird
+ * das letzte Element in die Lücke verschoben.
+ */
+final class CellSet {
+
+    private static final int CELLS = 81;
+
+    private final int[] cells;
+    private final int[] positions;
+    private int size;
+
+    CellSet() {
+        cells = new int[CELLS];
+        positions = new int[CELLS];
+        clear();
+    }
+
+    void add(int cell) {
+        if (positions[cell] != -1) {
+            return;
+        }
+        positions[cell] = size;
+        cells[size++] = cell;
+    }
+
+    void remove(int cell) {
+        int pos = positions[cell];
+        if (pos == -1) {
+            return;
+        }
+        int last = cells[--size];
+        cells[pos] = last;
+        positions[last] = pos;
+        positions[cell] = -1;
+    }
+
+    boolean contains(int cell) {
+        return positions[cell] != -1;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Zuletzt eingefügte Zelle, sofern seitdem keine Zelle entfernt wurde
+     */
+    int last() {
+        return cells[size - 1];
+    }
+
+    void clear() {
+        for (int i = 0; i < CELLS; i++) {
+            positions[i] = -1;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+
+ * ClassifierHolder
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+
+import java.io.IOException;
+
+/**
+ * Verwaltet einen einzigen DigitClassifier für die ganze App. Das Model wird beim Start der App
+ * einmalig geladen und mit einer ersten Inferenz aufgewärmt, sodass ein Scan nicht auf ein kaltes
+ * Model warten muss. Aktivitäten holen sich den Classifier mit acquire() und geben ihn mit
+ * release() wieder ab. Nur wenn ihn gerade niemand benutzt und er fertig geladen ist, darf er bei
+ * Speichermangel mit trim() geschlossen werden und wird beim nächsten acquire() neu geladen.
+ * Schlägt das Laden fehl, wird der Classifier verworfen, damit der nächste Aufruf von preload()
+ * oder acquire() das Model neu lädt, statt einen nicht initialisierten Classifier auszugeben.
+ */
+public class ClassifierHolder {
+
+    private static final String TAG = "ClassifierHolder";
+
+    private final Context context;
+    private DigitClassifier classifier;
+    private Task<DigitClassifier> initializeTask;
+    private int refCount;
+
+    public ClassifierHolder(Context context) {
+        this.context = context.getApplicationContext();
+        this.classifier = null;
+        this.initializeTask = null;
+        this.refCount = 0;
+    }
+
+    /**
+     * Lädt das Model im Hintergrund, falls es noch nicht geladen ist oder das letzte Laden
+     * fehlgeschlagen ist.
+     *
+     * @return Task mit dem Classifier, der abgeschlossen ist, sobald das Model bereit ist
+     */
+    public synchronized Task<DigitClassifier> preload() {
+        if (classifier == null) {
+            DigitClassifier created = new DigitClassifier(context);
+            classifier = created;
+            // Die Continuation läuft direkt im Thread des Classifiers, nicht im UI-Thread
+            initializeTask = created.initialize()
+                    .continueWith(Runnable::run, task -> {
+                        if (!task.isSuccessful()) {
+                            onInitializeFailed(created);
+                            Exception e = task.getException();
+                            throw e != null ? e : new IOException("Initialization cancelled");
+                        }
+                        return created;
+                    })
+                    .addOnSuccessListener(d -> Log.d(TAG, "Success setting up digit classifier"))
+                    .addOnFailureListener(e -> Log.e(TAG, "Error to setting up digit classifier.", e));
+        }
+        return initializeTask;
+    }
+
+    /**
+     * Verwirft einen Classifier, dessen Model nicht geladen werden konnte.
+     *
+     * @param failed Classifier, dessen Initialisierung fehlgeschlagen ist
+     */
+    private synchronized void onInitializeFailed(DigitClassifier failed) {
+        // Nach trim() kann bereits ein neuer Classifier geladen werden, der bleibt erhalten
+        if (classifier == failed) {
+            classifier = null;
+            initializeTask = null;
+        }
+        failed.close();
+    }
+
+    /**
+     * Gibt den gemeinsamen Classifier zurück und zählt die Anzahl der Benutzer hoch. Solange das
+     * Model noch geladen wird, ist isInitialized false. Wer den Classifier benutzen will, wartet
+     * daher auf den Task aus preload().
+     *
+     * @return Gemeinsamer DigitClassifier
+     */
+    public synchronized DigitClassifier acquire() {
+        preload();
+        refCount++;
+        return classifier;
+    }
+
+    /**
+     * Gibt den Classifier wieder ab. Das Model bleibt geladen, damit der nächste Scan sofort
+     * starten kann.
+     */
+    public synchronized void release() {
+        if (refCount > 0) {
+            refCount--;
+        }
+    }
+
+    /**
+     * Schließt den Classifier und gibt den Speicher des Models frei, wenn ihn gerade niemand
+     * benutzt. Wird aufgerufen, wenn das System wenig Speicher hat. Solange das Model noch geladen
+     * wird, bleibt der Classifier erhalten, sonst würde der fertige Interpreter in einem bereits
+     * verworfenen Classifier landen.
+     */
+    public synchronized void trim() {
+        if (initializeTask != null && !initializeTask.isComplete()) {
+            Log.d(TAG, "Digit classifier is still loading, not trimming");
+            return;
+        }
+        if (refCount == 0 && classifier != null) {
+            classifier.close();
+            classifier = null;
+            initializeTask = null;
+            Log.d(TAG, "Released digit classifier");
+        }
+    }
+}
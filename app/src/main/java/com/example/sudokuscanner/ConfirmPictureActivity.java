@@ -10,13 +10,11 @@
 package com.example.sudokuscanner;
 
 import android.content.ContentValues;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
-import android.media.ExifInterface;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -24,25 +22,27 @@ import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.preference.PreferenceManager;
 
-import org.opencv.android.Utils;
-import org.opencv.core.Core;
-import org.opencv.core.Mat;
-
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 
 /**
  * Diese Klasse enthält Methoden um ein Bild aus der Gallery einzulesen oder über die Kamera ein Bild
  * aufzunehmen, je nachdem was für eine Auswahl in der MainActivity getroffen wurde. Nach dem
  * einlesen, kann der Benutzer die Auswahl nochmal einsehen, das Bild rotieren und die Auswahl
  * bestätigen oder abbrechen.
+ * Im UI-Thread wird kein Bild dekodiert. Die kleine Vorschau wird im Hintergrund geladen, das Bild
+ * in Arbeitsauflösung erst in der ersten Stufe des Scans. Gespeichert wird nur die Anzahl der
+ * Vierteldrehungen, die erst bei der Analyse angewendet werden. Beim Drehen wird nur die Vorschau
+ * neu erzeugt.
  * Das zu dieser Klasse gehörende Layout ist "activity_confirm_picture.xml".
  */
 public class ConfirmPictureActivity extends AppCompatActivity {
@@ -52,16 +52,25 @@ public class ConfirmPictureActivity extends AppCompatActivity {
 
     private ImageView selectedImageIv;
     private Button cancelBtn, confirmBtn, rotateLeftBtn, rotateRightBtn;
+    private LinearLayout scanProgressLayout;
+    private ProgressBar scanProgressBar;
+    private TextView scanStatusTv;
+    private String[] scanStages;
     private Uri imageUri = null;
     private int resultCode;
-    private Mat[][] cellsMat;
-    private int[][] cellArray;
-    private Bitmap selectedImage;
+    // Ausstehende Vierteldrehungen im Uhrzeigersinn
+    private int quarterTurns;
+    // Ungedrehte Vorschau und die gerade angezeigte, gedrehte Vorschau
+    private Bitmap preview, rotatedPreview;
 
     private Boolean debug, saveImg;
+    // Das Foto der Kamera wird beim Beenden gelöscht, wenn es nicht gespeichert werden soll
+    private boolean deleteCapturedImage;
+    // Der Benutzer hat den Scan gestartet und noch kein Ergebnis bekommen
+    private boolean scanRequested;
 
-    private SudokuAnalyser sudoku;
-    private DigitClassifier digitClassifier;
+    private ClassifierHolder classifierHolder;
+    private ScanPipeline scanPipeline;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -77,16 +86,18 @@ public class ConfirmPictureActivity extends AppCompatActivity {
         confirmBtn = findViewById(R.id.confirmBtn);
         rotateLeftBtn = findViewById(R.id.rorateLeftBtn);
         rotateRightBtn = findViewById(R.id.rotateRightBtn);
-
-        // Klasse um Ziffern aus Bildern zu erkennen
-        digitClassifier = new DigitClassifier(this);
-
-        // Initialisiere den TensorflowLite Classifier
-        if (!digitClassifier.isInitialized) {
-            digitClassifier.initialize()
-                    .addOnSuccessListener(d -> Log.d(TAG, "Success setting up digit classifier"))
-                    .addOnFailureListener(e -> Log.e(TAG, "Error to setting up digit classifier.", e));
-        }
+        scanProgressLayout = findViewById(R.id.scanProgressLayout);
+        scanProgressBar = findViewById(R.id.scanProgressBar);
+        scanStatusTv = findViewById(R.id.scanStatusTv);
+        scanStages = getResources().getStringArray(R.array.scan_stages);
+        scanProgressBar.setMax(ScanPipeline.STAGE_COUNT);
+
+        // Klasse um Ziffern aus Bildern zu erkennen. Das Model wird von der App einmalig geladen
+        // und zwischen allen Scans geteilt.
+        classifierHolder = ((SudokuScannerApplication) getApplication()).getClassifierHolder();
+        classifierHolder.acquire();
+        // Führt den Scan im Hintergrund aus und wartet vor der Klassifikation auf das Model
+        scanPipeline = new ScanPipeline(classifierHolder);
 
         // Der Intent sollte nur den jeweiligen Result-Code aus der Klasse MainActivity enthalten
         Bundle extras = getIntent().getExtras();
@@ -125,10 +136,8 @@ public class ConfirmPictureActivity extends AppCompatActivity {
         confirmBtn.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                try {
-                    confirmImage(selectedImage);
-                } catch (IOException e) {
-                    e.printStackTrace();
+                if (preview != null) {
+                    confirmImage();
                 }
             }
         });
@@ -136,9 +145,9 @@ public class ConfirmPictureActivity extends AppCompatActivity {
         rotateLeftBtn.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if (selectedImage != null) {
-                    selectedImage = rotateBitmap(-90);
-                    selectedImageIv.setImageBitmap(selectedImage);
+                if (preview != null) {
+                    quarterTurns = (quarterTurns + 3) % 4;
+                    showPreview();
                 }
             }
         });
@@ -146,9 +155,9 @@ public class ConfirmPictureActivity extends AppCompatActivity {
         rotateRightBtn.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if (selectedImage != null) {
-                    selectedImage = rotateBitmap(90);
-                    selectedImageIv.setImageBitmap(selectedImage);
+                if (preview != null) {
+                    quarterTurns = (quarterTurns + 1) % 4;
+                    showPreview();
                 }
             }
         });
@@ -165,50 +174,63 @@ public class ConfirmPictureActivity extends AppCompatActivity {
                     assert data != null;
                     // Lese die Uri aus und übergebe die Uri über das Intent an die neue Activity
                     imageUri = data.getData();
-                    final InputStream imageStream;
-                    try {
-                        imageStream = getContentResolver().openInputStream(imageUri);
-                        selectedImage = BitmapFactory.decodeStream(imageStream);
-                        if (selectedImage == null) {
-                            Toast.makeText(ConfirmPictureActivity.this, "Image not found", Toast.LENGTH_LONG).show();
-                            finish();
-                        }
-
-                        // Check ob aus den Exifdaten ausgelesen werden kann, ob das Bild rotiert ist.
-                        ExifInterface ei = new ExifInterface(getContentResolver().openInputStream(imageUri));
-                        int rotation = checkRotation(ei);
-                        selectedImage = rotateBitmap(rotation);
-                        selectedImageIv.setImageBitmap(selectedImage);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        finish();
-                    }
+                    loadPreview(false);
                     break;
                 case 102: /* Erfasse Bild mit Kamera */
-                    // Wenn Bild mit der Kamera erfasst wird, konvertiere es in eine Bitmap
-                    try {
-                        selectedImage = MediaStore.Images.Media.getBitmap(
-                                getContentResolver(), imageUri);
-                        // Check ob aus den Exifdaten ausgelesen werden kann, ob das Bild rotiert ist.
-                        ExifInterface ei = new ExifInterface(getContentResolver().openInputStream(imageUri));
-                        int rotation = checkRotation(ei);
-                        selectedImage = rotateBitmap(rotation);
-                        if (!saveImg) {
-                            deleteImageFromStorage();
-                        }
-                        confirmImage(selectedImage);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+                    deleteCapturedImage = !saveImg;
+                    // Wenn Bild mit der Kamera erfasst wird, lade es und starte direkt den Scan.
+                    // Die Vorschau bleibt während des Scans im Hintergrund sichtbar.
+                    loadPreview(true);
                     break;
             }
-        }
-        // Wenn kein Bild geladen wurde, beende die Activity
-        if (selectedImageIv.getDrawable() == null) {
+        } else {
+            // Wenn kein Bild ausgewählt wurde, beende die Activity
             finish();
         }
     }
 
+    /**
+     * Lädt die Vorschau des Bildes aus imageUri im Hintergrund. Die EXIF Orientierung wird nur als
+     * ausstehende Drehung gespeichert.
+     *
+     * @param scan Startet nach dem Laden direkt den Scan
+     */
+    private void loadPreview(boolean scan) {
+        scanPipeline.loadPreview(getContentResolver(), imageUri)
+                .addOnSuccessListener(loaded -> {
+                    if (isDestroyed()) {
+                        loaded.getBitmap().recycle();
+                        return;
+                    }
+                    preview = loaded.getBitmap();
+                    quarterTurns = loaded.getQuarterTurns();
+                    showPreview();
+                    if (scan) {
+                        confirmImage();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading image.", e);
+                    if (!isDestroyed()) {
+                        Toast.makeText(ConfirmPictureActivity.this, "Image not found", Toast.LENGTH_LONG).show();
+                        finish();
+                    }
+                });
+    }
+
+    /**
+     * Zeigt die Vorschau mit den ausstehenden Drehungen an. Gedreht wird nur die kleine Vorschau,
+     * die vorherige gedrehte Vorschau wird freigegeben.
+     */
+    private void showPreview() {
+        Bitmap previous = rotatedPreview;
+        rotatedPreview = quarterTurns == 0 ? null : BitmapLoader.rotate(preview, quarterTurns * 90);
+        selectedImageIv.setImageBitmap(rotatedPreview != null ? rotatedPreview : preview);
+        if (previous != null) {
+            previous.recycle();
+        }
+    }
+
     /**
      * Löscht ein Bild wenn der komplette Speicherpfad bekannt ist.
      */
@@ -224,37 +246,6 @@ public class ConfirmPictureActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * Liest anhand der Exif Daten aus, ob ein Bild rotiert ist.
-     *
-     * @param ei ExifInterface, welches bereits die Daten eines Bildes enthält
-     * @return int, Gradzahl um die das Bild rotiert werden muss, damit es gerade ausgerichtet ist.
-     */
-    private int checkRotation(ExifInterface ei) {
-        int orientation = ei.getAttributeInt(ExifInterface.TAG_ORIENTATION,
-                ExifInterface.ORIENTATION_UNDEFINED);
-        Log.d(TAG, String.valueOf(orientation));
-
-        switch (orientation) {
-
-            case ExifInterface.ORIENTATION_ROTATE_90:
-                Log.d(TAG, "ROTATION 90 DEGREES");
-                return 90;
-
-            case ExifInterface.ORIENTATION_ROTATE_180:
-                Log.d(TAG, "IN ROTATION 180 DEGREES");
-                return 180;
-
-            case ExifInterface.ORIENTATION_ROTATE_270:
-                Log.d(TAG, "IN ROTATION 270 DEGREES");
-                return 270;
-
-            default:
-                Log.d(TAG, "IN ROTATION DEFAULT");
-                return 0;
-        }
-    }
-
     /**
      * Liest den Pfad eines Bildes aus, wenn die Uri bekannt ist
      *
@@ -272,130 +263,140 @@ public class ConfirmPictureActivity extends AppCompatActivity {
 
 
     /**
-     * Startet die Analyse des ausgewählten Bildes mithilfe der Klasse SudokuAnalyser()
-     *
-     * @param image Bitmap des ausgewählten Bildes
-     * @throws IOException Falls das ausgewählte Bild nicht gefunden / geladen werden konnte
+     * Startet die Analyse des ausgewählten Bildes im Hintergrund mithilfe der Klasse ScanPipeline.
+     * Während des Scans wird der Fortschritt angezeigt und die Buttons zum Bestätigen und Drehen
+     * sind deaktiviert. Erst wenn der Scan fertig ist, wird das Spiel gestartet.
      */
-    private void confirmImage(Bitmap image) throws IOException {
-        sudoku = new SudokuAnalyser();
-        // Beinhaltet 81 Bilder der einzelnen Zellen
-        cellsMat = sudoku.analyseSudokuPipeline(image, debug);
-        if (checkIfEmpty(cellsMat)) {
-            emptyArray();
-        }
-        // Klassifiziert die Bilder aus dem cellsMat Array
-        classifyCells();
-
-        if (checkIfEmpty(cellArray)) {
-            emptyArray();
-        }
+    private void confirmImage() {
+        scanRequested = true;
+        startScan();
+    }
 
-        // Intent, welches die Aktivität activity_sudoku_game.xml und die dazu gehörige Klasse startet.
-        // Übergeben wird das Array mit den Klassifizierten Zahlen.
-        Intent switchToGame = new Intent(getApplicationContext(), SudokuGameActivity.class);
-        switchToGame.putExtra("cells", cellArray);
-        startActivity(switchToGame);
-        finish();
+    /**
+     * Die Listener sind an die Aktivität gebunden und werden in onStop() automatisch entfernt.
+     */
+    private void startScan() {
+        setScanning(true);
+        scanPipeline.scan(getContentResolver(), imageUri, quarterTurns, debug, this::showScanStage)
+                .addOnSuccessListener(this, this::onScanFinished)
+                .addOnFailureListener(this, e -> {
+                    Log.e(TAG, "Error scanning sudoku.", e);
+                    scanRequested = false;
+                    emptyArray();
+                });
     }
 
-    private void emptyArray() {
-        Toast.makeText(ConfirmPictureActivity.this, ERROR_TEXT, Toast.LENGTH_LONG).show();
-        finish();
+    private void showScanStage(int stage) {
+        scanProgressBar.setProgress(stage + 1);
+        scanStatusTv.setText(scanStages[stage]);
     }
 
     /**
-     * Klassifiziert die Mat Objekte aus dem cellsMat Array und liest die Zahlen aus den Bildern aus.
+     * Zeigt den Fortschritt des Scans an und sperrt die Buttons, die das Bild verändern würden.
      */
-    private void classifyCells() {
-        cellArray = new int[9][9];
-
-        if (digitClassifier.isInitialized) {
-            for (int col = 0; col < 9; col++) {
-                for (int row = 0; row < 9; row++) {
-                    Mat currentCell = cellsMat[col][row];
-
-                    // Wenn das Bild komplett schwarz ist, ist das eine leere Zelle. Weise den Wert
-                    // 0 zu.
-                    if (Core.countNonZero(currentCell) == 0) {
-                        cellArray[col][row] = 0;
-                    } else {
-                        // Erstelle eine leere Bitmap, mit den selben Dimensionen wie die zu
-                        // analysierende Zelle
-                        Bitmap cellBitmap = Bitmap.createBitmap(currentCell.cols(), currentCell.rows(),
-                                Bitmap.Config.ARGB_8888);
-                        // Wandel das Mat Objekt in eine Bitmap um.
-                        Utils.matToBitmap(currentCell, cellBitmap);
-
-                        // Klassifiziere die Bitmap und schreibe die Zahl an den passenden Index.
-                        cellArray[col][row] = Integer.parseInt(digitClassifier.classify(cellBitmap));
-                    }
-                }
-            }
-        }
+    private void setScanning(boolean scanning) {
+        scanProgressLayout.setVisibility(scanning ? View.VISIBLE : View.GONE);
+        confirmBtn.setEnabled(!scanning);
+        rotateLeftBtn.setEnabled(!scanning);
+        rotateRightBtn.setEnabled(!scanning);
     }
 
     /**
-     * Dreht eine Bitmap um den angebenen Winkel
+     * Startet das Spiel mit den erkannten Zahlen oder zeigt eine Fehlermeldung an, wenn kein Sudoku
+     * erkannt wurde. Wurde eine Zahl in einer Reihe, Spalte oder einem Block doppelt erkannt, wurde
+     * das Bild vermutlich falsch eingelesen. Der Benutzer kann dann ein neues Bild aufnehmen oder
+     * trotzdem spielen.
      *
-     * @param angle Winkel, um den die Bitmap gedreht werden soll
-     * @return Neue, rotierte Bitmap
+     * @param result Ergebnis des Scans
      */
-    private Bitmap rotateBitmap(float angle) {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(angle);
-        return Bitmap.createBitmap(selectedImage, 0, 0, selectedImage.getWidth(), selectedImage.getHeight(), matrix, true);
+    private void onScanFinished(ScanPipeline.ScanResult result) {
+        scanRequested = false;
+        setScanning(false);
+
+        if (!result.isValid()) {
+            emptyArray();
+            return;
+        }
+        if (!result.hasConflicts()) {
+            startGame(result.getCells());
+            return;
+        }
+
+        Log.d(TAG, "Scanned sudoku contains conflicting digits");
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Check scan");
+        builder.setMessage("Some digits appear twice in a row, column or box. The picture was "
+                + "probably not read correctly.");
+        builder.setCancelable(true);
+
+        // Zurück zur Auswahl, um ein neues Bild aufzunehmen oder auszuwählen
+        builder.setPositiveButton(
+                "Retake",
+                new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int id) {
+                        finish();
+                    }
+                });
+
+        builder.setNegativeButton(
+                "Play anyway",
+                new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int id) {
+                        startGame(result.getCells());
+                    }
+                });
+
+        AlertDialog alert = builder.create();
+        alert.show();
     }
 
     /**
-     * Überprüft ob ein 2d Array nur null-Werte (wenn ein Mat[][] übergeben wurde) oder nur 0-Werte
-     * (wenn ein int[][] übergeben wurde) besitzt
+     * Startet das Spiel mit den erkannten Zahlen und beendet diese Aktivität.
      *
-     * @param array Mat[][] oder int[][]
-     * @return true, wenn Array leer ist, false sonst
+     * @param cells Erkannte Zahlen als 9x9 Array
      */
-    private boolean checkIfEmpty(Mat[][] array) {
-        for (int col = 0; col < 9; col++) {
-            for (int row = 0; row < 9; row++) {
-                if (array[row][col] != null) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private void startGame(int[][] cells) {
+        // Intent, welches die Aktivität activity_sudoku_game.xml und die dazu gehörige Klasse startet.
+        // Übergeben wird das Array mit den Klassifizierten Zahlen.
+        Intent switchToGame = new Intent(getApplicationContext(), SudokuGameActivity.class);
+        switchToGame.putExtra("cells", cells);
+        startActivity(switchToGame);
+        finish();
     }
 
-    private boolean checkIfEmpty(int[][] array) {
-        for (int col = 0; col < 9; col++) {
-            for (int row = 0; row < 9; row++) {
-                if (array[row][col] != 0) {
-                    return false;
-                }
-            }
-        }
-        return true;
+    private void emptyArray() {
+        Toast.makeText(ConfirmPictureActivity.this, ERROR_TEXT, Toast.LENGTH_LONG).show();
+        finish();
     }
 
     @Override
-    protected void onStop() {
-        Log.d(TAG, "ON STOP");
-        digitClassifier.close();
-        super.onStop();
+    protected void onStart() {
+        super.onStart();
+        // Ein in onStop() abgebrochener Scan wird von vorne gestartet
+        if (scanRequested) {
+            startScan();
+        }
     }
 
     @Override
-    protected void onStart() {
-        Log.d(TAG, "ON START");
-        digitClassifier.initialize();
-        super.onStart();
+    protected void onStop() {
+        // Ein noch laufender Scan wird abgebrochen und in onStart() neu gestartet, damit er nicht
+        // im Hintergrund das Spiel startet
+        scanPipeline.cancel();
+        super.onStop();
     }
 
     @Override
     public void onDestroy() {
-        // Wenn die MainActivity der App beendet wird, entferne den TensorflowLite classifier
-        // ebenfalls aus dem Speicher.
+        // Gib den Classifier wieder ab. Das Model bleibt für den nächsten Scan geladen.
         Log.d(TAG, "ON DESTROY");
-        digitClassifier.close();
+        // Ein laufender Scan wird abgebrochen, sein Ergebnis wird nicht mehr gebraucht
+        scanPipeline.close();
+        // Ein Foto der Kamera wird erst gelöscht, wenn kein neuer Scan es mehr lesen kann
+        if (deleteCapturedImage) {
+            deleteImageFromStorage();
+        }
+        classifierHolder.release();
         super.onDestroy();
     }
 }
\ No newline at end of file
@@ -0,0 +1,388 @@
+/*
+
+ * ConstraintPropagator
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Diese Klasse wendet die logischen Lösungstechniken an, mit denen auch ein Mensch ein Sudoku
+ * löst, ohne zu raten:
+ * - Naked Single: In einer Zelle ist nur noch eine Zahl möglich
+ * - Hidden Single: Eine Zahl ist in einer Reihe, Spalte oder Box nur noch in einer Zelle möglich
+ * - Pointing Pair: Eine Zahl liegt innerhalb einer Box nur in einer Reihe/Spalte und kann daher
+ * aus dem Rest dieser Reihe/Spalte gestrichen werden
+ * - Box/Line Reduction: Eine Zahl liegt innerhalb einer Reihe/Spalte nur in einer Box und kann
+ * daher aus dem Rest dieser Box gestrichen werden
+ * <p>
+ * Für jede Zelle wird eine Bitmaske der möglichen Zahlen geführt, die beim Setzen einer Zahl nur
+ * für die 20 betroffenen Nachbarzellen aktualisiert wird. Die Techniken werden so lange
+ * angewendet, bis sich nichts mehr ändert.
+ */
+public class ConstraintPropagator {
+
+    private static final String TAG = "ConstraintPropagator";
+
+    private static final int N = 9;
+    private static final int CELLS = N * N;
+    private static final int ALL_DIGITS = BitmaskSolver.ALL_DIGITS;
+
+    // Ergebnis eines Durchlaufs einer Lösungstechnik
+    private static final int CONTRADICTION = -1;
+    private static final int NO_PROGRESS = 0;
+    private static final int PROGRESS = 1;
+
+    // Die 20 Zellen, die mit einer Zelle eine Reihe, Spalte oder Box teilen
+    private static final int[][] PEERS = new int[CELLS][20];
+    // Zellen der 27 Einheiten: Reihen 0-8, Spalten 9-17, Boxen 18-26
+    private static final int[][] UNITS = new int[3 * N][N];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            UNITS[BitmaskSolver.ROW_OF[i]][BitmaskSolver.COL_OF[i]] = i;
+            UNITS[N + BitmaskSolver.COL_OF[i]][BitmaskSolver.ROW_OF[i]] = i;
+            int posInBox = (BitmaskSolver.ROW_OF[i] % 3) * 3 + BitmaskSolver.COL_OF[i] % 3;
+            UNITS[2 * N + BitmaskSolver.BOX_OF[i]][posInBox] = i;
+
+            int count = 0;
+            for (int j = 0; j < CELLS; j++) {
+                if (j != i && (BitmaskSolver.ROW_OF[i] == BitmaskSolver.ROW_OF[j]
+                        || BitmaskSolver.COL_OF[i] == BitmaskSolver.COL_OF[j]
+                        || BitmaskSolver.BOX_OF[i] == BitmaskSolver.BOX_OF[j])) {
+                    PEERS[i][count++] = j;
+                }
+            }
+        }
+    }
+
+    private final int[] values;
+    private final int[] candidates;
+
+    // Zellen, in denen nur noch eine Zahl möglich ist. Jede Zelle landet höchstens einmal hier.
+    private final int[] queue;
+    private int queueHead, queueTail;
+
+    // Oder-Verknüpfung der Kandidaten von je drei Zellen einer Reihe/Spalte innerhalb einer Box
+    private final int[] rowSegments, colSegments;
+
+    public ConstraintPropagator() {
+        values = new int[CELLS];
+        candidates = new int[CELLS];
+        queue = new int[CELLS];
+        rowSegments = new int[3 * N];
+        colSegments = new int[3 * N];
+    }
+
+    /**
+     * Liest ein Sudoku Feld ein und streicht die vorgegebenen Zahlen aus den Kandidaten der
+     * Nachbarzellen.
+     *
+     * @param cells Sudoku Feld mit 81 Zahlen (index = row * 9 + col), leere Zellen haben den Wert 0
+     * @return false, wenn sich die vorgegebenen Zahlen widersprechen
+     */
+    public boolean load(int[] cells) {
+        for (int i = 0; i < CELLS; i++) {
+            values[i] = 0;
+            candidates[i] = ALL_DIGITS;
+        }
+        queueHead = 0;
+        queueTail = 0;
+
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] != 0 && !assign(i, cells[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wendet alle Lösungstechniken an, bis keine weitere Zahl mehr gesetzt oder gestrichen werden
+     * kann. Zuerst werden immer alle Naked Singles abgearbeitet, da diese am günstigsten sind.
+     *
+     * @return false, wenn das Sudoku keine Lösung hat
+     */
+    public boolean propagate() {
+        while (true) {
+            while (queueHead < queueTail) {
+                int cell = queue[queueHead++];
+                if (values[cell] != 0) {
+                    continue;
+                }
+                if (!assign(cell, Integer.numberOfTrailingZeros(candidates[cell]) + 1)) {
+                    return false;
+                }
+            }
+
+            int result = hiddenSingles();
+            if (result == NO_PROGRESS) {
+                result = lockedCandidates();
+            }
+            if (result == CONTRADICTION) {
+                return false;
+            }
+            if (result == NO_PROGRESS) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sucht nach load() die nächste Zelle, die sich ohne Raten lösen lässt, ohne sie zu setzen.
+     * Naked Singles werden bevorzugt, da sie für einen Menschen am einfachsten zu sehen sind,
+     * danach folgen Hidden Singles.
+     *
+     * @return Zellenindex oder -1, wenn keine Zelle direkt gelöst werden kann
+     */
+    public int findSingle() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int c = candidates[cell];
+            if (values[cell] == 0 && c != 0 && (c & (c - 1)) == 0) {
+                return cell;
+            }
+        }
+
+        for (int u = 0; u < UNITS.length; u++) {
+            int[] unit = UNITS[u];
+            int once = 0, twice = 0;
+            for (int i = 0; i < N; i++) {
+                twice |= once & candidates[unit[i]];
+                once |= candidates[unit[i]];
+            }
+
+            int hidden = once & ~twice;
+            if (hidden != 0) {
+                int bit = hidden & -hidden;
+                for (int i = 0; i < N; i++) {
+                    if ((candidates[unit[i]] & bit) != 0) {
+                        return unit[i];
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param cell Zellenindex
+     * @return Zahl in der Zelle oder 0, wenn die Zelle noch leer ist
+     */
+    public int getValue(int cell) {
+        return values[cell];
+    }
+
+    /**
+     * @param cell Zellenindex
+     * @return Bitmaske der noch möglichen Zahlen einer leeren Zelle, 0 für besetzte Zellen
+     */
+    public int getCandidates(int cell) {
+        return candidates[cell];
+    }
+
+    /**
+     * Setzt eine Zahl in eine Zelle und streicht sie aus den Kandidaten aller Nachbarzellen.
+     *
+     * @param cell  Zellenindex
+     * @param digit Zahl von 1-9
+     * @return false, wenn die Zahl in der Zelle nicht möglich ist
+     */
+    private boolean assign(int cell, int digit) {
+        if (values[cell] != 0) {
+            return values[cell] == digit;
+        }
+
+        int bit = 1 << (digit - 1);
+        if ((candidates[cell] & bit) == 0) {
+            return false;
+        }
+
+        values[cell] = digit;
+        candidates[cell] = 0;
+
+        int[] peers = PEERS[cell];
+        for (int i = 0; i < peers.length; i++) {
+            if (!eliminate(peers[i], bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Streicht eine Zahl aus den Kandidaten einer Zelle. Bleibt nur noch eine Zahl übrig, wird die
+     * Zelle in die Warteschlange der Naked Singles gelegt.
+     *
+     * @param cell Zellenindex
+     * @param bit  Bitmaske der zu streichenden Zahl
+     * @return false, wenn die Zelle danach keine Kandidaten mehr hat
+     */
+    private boolean eliminate(int cell, int bit) {
+        if (values[cell] != 0) {
+            return (1 << (values[cell] - 1)) != bit;
+        }
+
+        int c = candidates[cell];
+        if ((c & bit) == 0) {
+            return true;
+        }
+
+        c &= ~bit;
+        candidates[cell] = c;
+
+        if (c == 0) {
+            return false;
+        }
+        if ((c & (c - 1)) == 0) {
+            queue[queueTail++] = cell;
+        }
+        return true;
+    }
+
+    /**
+     * Sucht in allen Reihen, Spalten und Boxen nach Zahlen, die nur noch in einer Zelle möglich
+     * sind, und setzt diese.
+     *
+     * @return PROGRESS, NO_PROGRESS oder CONTRADICTION
+     */
+    private int hiddenSingles() {
+        int result = NO_PROGRESS;
+
+        for (int u = 0; u < UNITS.length; u++) {
+            int[] unit = UNITS[u];
+            int once = 0, twice = 0, placed = 0;
+
+            for (int i = 0; i < N; i++) {
+                int cell = unit[i];
+                if (values[cell] != 0) {
+                    placed |= 1 << (values[cell] - 1);
+                } else {
+                    twice |= once & candidates[cell];
+                    once |= candidates[cell];
+                }
+            }
+
+            // Eine Zahl kann in dieser Einheit nirgends mehr plaziert werden
+            if ((once | placed) != ALL_DIGITS) {
+                return CONTRADICTION;
+            }
+
+            int hidden = once & ~twice;
+            while (hidden != 0) {
+                int bit = hidden & -hidden;
+                hidden ^= bit;
+
+                int target = -1;
+                for (int i = 0; i < N && target == -1; i++) {
+                    if ((candidates[unit[i]] & bit) != 0) {
+                        target = unit[i];
+                    }
+                }
+                if (target == -1 || !assign(target, Integer.numberOfTrailingZeros(bit) + 1)) {
+                    return CONTRADICTION;
+                }
+                result = PROGRESS;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pointing Pairs und Box/Line Reduction. Für jede Reihe und Spalte werden die Kandidaten der drei
+     * Abschnitte (je ein Abschnitt pro Box) zusammengefasst. Eine Zahl, die in einem Abschnitt
+     * vorkommt, aber in keinem der beiden anderen Abschnitte derselben Box bzw. derselben
+     * Reihe/Spalte, kann aus dem Rest der Reihe/Spalte bzw. der Box gestrichen werden.
+     *
+     * @return PROGRESS, NO_PROGRESS oder CONTRADICTION
+     */
+    private int lockedCandidates() {
+        for (int line = 0; line < N; line++) {
+            for (int seg = 0; seg < 3; seg++) {
+                int rowMask = 0, colMask = 0;
+                for (int k = 0; k < 3; k++) {
+                    rowMask |= candidates[line * N + seg * 3 + k];
+                    colMask |= candidates[(seg * 3 + k) * N + line];
+                }
+                rowSegments[line * 3 + seg] = rowMask;
+                colSegments[line * 3 + seg] = colMask;
+            }
+        }
+
+        int result = NO_PROGRESS;
+        for (int line = 0; line < N; line++) {
+            int band = line / 3;
+            int offset = line % 3;
+
+            for (int seg = 0; seg < 3; seg++) {
+                // Reihen: Abschnitt "seg" der Reihe "line" liegt in der Box (band, seg)
+                int rowMask = rowSegments[line * 3 + seg];
+                int otherRowsInBox = rowSegments[(band * 3 + (offset + 1) % 3) * 3 + seg]
+                        | rowSegments[(band * 3 + (offset + 2) % 3) * 3 + seg];
+                int otherBoxesInRow = rowSegments[line * 3 + (seg + 1) % 3]
+                        | rowSegments[line * 3 + (seg + 2) % 3];
+
+                int pointing = rowMask & ~otherRowsInBox;
+                int claiming = rowMask & ~otherBoxesInRow;
+
+                for (int i = 0; i < N; i++) {
+                    int rowCell = line * N + i;
+                    int boxCell = (band * 3 + i / 3) * N + seg * 3 + i % 3;
+
+                    int change = update(rowCell, i / 3 != seg ? pointing : 0)
+                            | update(boxCell, i / 3 != offset ? claiming : 0);
+                    if (change == CONTRADICTION) {
+                        return CONTRADICTION;
+                    }
+                    result |= change;
+                }
+
+                // Spalten: Abschnitt "seg" der Spalte "line" liegt in der Box (seg, band)
+                int colMask = colSegments[line * 3 + seg];
+                int otherColsInBox = colSegments[(band * 3 + (offset + 1) % 3) * 3 + seg]
+                        | colSegments[(band * 3 + (offset + 2) % 3) * 3 + seg];
+                int otherBoxesInCol = colSegments[line * 3 + (seg + 1) % 3]
+                        | colSegments[line * 3 + (seg + 2) % 3];
+
+                pointing = colMask & ~otherColsInBox;
+                claiming = colMask & ~otherBoxesInCol;
+
+                for (int i = 0; i < N; i++) {
+                    int colCell = i * N + line;
+                    int boxCell = (seg * 3 + i % 3) * N + band * 3 + i / 3;
+
+                    int change = update(colCell, i / 3 != seg ? pointing : 0)
+                            | update(boxCell, i / 3 != offset ? claiming : 0);
+                    if (change == CONTRADICTION) {
+                        return CONTRADICTION;
+                    }
+                    result |= change;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Streicht alle Zahlen aus mask aus den Kandidaten einer leeren Zelle.
+     *
+     * @return PROGRESS, NO_PROGRESS oder CONTRADICTION
+     */
+    private int update(int cell, int mask) {
+        int removed = candidates[cell] & mask;
+        if (removed == 0) {
+            return NO_PROGRESS;
+        }
+
+        while (removed != 0) {
+            int bit = removed & -removed;
+            removed ^= bit;
+            if (!eliminate(cell, bit)) {
+                return CONTRADICTION;
+            }
+        }
+        return PROGRESS;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+
+ * DancingLinksSolver
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Diese Klasse löst ein Sudoku als Exact-Cover Problem mit Knuths Algorithm X und Dancing Links.
+ * Die Matrix hat 324 Spalten (Bedingungen) und 729 Zeilen (Zahl z in Reihe r und Spalte c).
+ * Jede Zeile deckt genau vier Bedingungen ab:
+ * - Zelle (r, c) ist besetzt
+ * - Reihe r enthält die Zahl z
+ * - Spalte c enthält die Zahl z
+ * - Box b enthält die Zahl z
+ * <p>
+ * Alle Knoten liegen in vorab angelegten int-Arrays und werden bei jedem Lösungsvorgang
+ * wiederverwendet. Da cover() und uncover() sich exakt aufheben, ist die Matrix nach jeder Suche
+ * wieder im Ausgangszustand.
+ */
+public class DancingLinksSolver implements SudokuSolver {
+
+    private static final String TAG = "DancingLinksSolver";
+
+    private static final int N = 9;
+    private static final int CELLS = N * N;
+
+    private static final int COLUMNS = 4 * CELLS;
+    private static final int ROWS = CELLS * N;
+
+    // Knoten 0 ist die Wurzel, 1-324 die Spaltenköpfe, danach folgen je 4 Knoten pro Zeile
+    private static final int ROOT = 0;
+    private static final int FIRST_ROW_NODE = COLUMNS + 1;
+    private static final int NODES = FIRST_ROW_NODE + ROWS * 4;
+
+    private final int[] left, right, up, down;
+    // Spaltenkopf und Matrixzeile zu jedem Knoten
+    private final int[] column, rowOf;
+    // Anzahl der Knoten in jeder Spalte
+    private final int[] size;
+
+    // Gewählte Zeilen der aktuellen Teillösung
+    private final int[] chosenRows;
+    // Durch die vorgegebenen Zahlen abgedeckte Spalten, in der Reihenfolge des Abdeckens
+    private final int[] coveredColumns;
+    private int coveredCount;
+
+    private final int[] solution;
+    private int solutionCount, solutionLimit;
+    private final int[][] solutions;
+
+    public DancingLinksSolver() {
+        left = new int[NODES];
+        right = new int[NODES];
+        up = new int[NODES];
+        down = new int[NODES];
+        column = new int[NODES];
+        rowOf = new int[NODES];
+        size = new int[COLUMNS + 1];
+
+        chosenRows = new int[CELLS];
+        coveredColumns = new int[COLUMNS];
+        coveredCount = 0;
+
+        solution = new int[CELLS];
+        solutions = new int[STORED_SOLUTIONS][CELLS];
+
+        buildMatrix();
+    }
+
+    /**
+     * Baut die komplette Exact-Cover Matrix einmalig auf.
+     */
+    private void buildMatrix() {
+        // Wurzel und Spaltenköpfe als zyklische Liste
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == 0 ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? 0 : c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            rowOf[c] = -1;
+        }
+
+        for (int row = 0; row < ROWS; row++) {
+            int cell = row / N;
+            int digit = row % N;
+            int r = BitmaskSolver.ROW_OF[cell];
+            int c = BitmaskSolver.COL_OF[cell];
+            int b = BitmaskSolver.BOX_OF[cell];
+
+            int first = FIRST_ROW_NODE + row * 4;
+            int[] columns = {
+                    1 + cell,
+                    1 + CELLS + r * N + digit,
+                    1 + 2 * CELLS + c * N + digit,
+                    1 + 3 * CELLS + b * N + digit
+            };
+
+            for (int k = 0; k < 4; k++) {
+                int node = first + k;
+                int col = columns[k];
+
+                // Horizontal zyklisch mit den anderen drei Knoten der Zeile verbinden
+                left[node] = first + (k + 3) % 4;
+                right[node] = first + (k + 1) % 4;
+
+                // Vertikal unten an die Spalte anhängen
+                up[node] = up[col];
+                down[node] = col;
+                down[up[col]] = node;
+                up[col] = node;
+
+                column[node] = col;
+                rowOf[node] = row;
+                size[col]++;
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(PackedBoard board) {
+        if (run(board, 1) == 0) {
+            return false;
+        }
+
+        board.setCells(solution);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(PackedBoard board, int limit) {
+        return run(board, limit);
+    }
+
+    @Override
+    public int[] getSolution(int index) {
+        return solutions[index];
+    }
+
+    /**
+     * Deckt die vorgegebenen Zahlen ab, sucht nach höchstens limit Lösungen und stellt die Matrix
+     * danach wieder her. Die zuletzt gefundene Lösung steht anschließend in solution.
+     *
+     * @param board Sudoku Feld
+     * @param limit Anzahl der Lösungen, nach denen die Suche abbricht
+     * @return Anzahl der gefundenen Lösungen
+     */
+    private int run(PackedBoard board, int limit) {
+        solutionCount = 0;
+        solutionLimit = limit;
+        if (limit <= 0) {
+            return 0;
+        }
+
+        coveredCount = 0;
+        boolean valid = true;
+
+        for (int i = 0; i < CELLS && valid; i++) {
+            int num = board.get(i);
+            solution[i] = num;
+
+            if (num == 0) {
+                continue;
+            }
+
+            int node = FIRST_ROW_NODE + (i * N + num - 1) * 4;
+            // Ist eine der Spalten schon abgedeckt, widerspricht sich die Vorgabe
+            int j = node;
+            do {
+                if (isCovered(column[j])) {
+                    valid = false;
+                    break;
+                }
+                j = right[j];
+            } while (j != node);
+
+            if (valid) {
+                j = node;
+                do {
+                    cover(column[j]);
+                    coveredColumns[coveredCount++] = column[j];
+                    j = right[j];
+                } while (j != node);
+            }
+        }
+
+        if (valid) {
+            search(0);
+        }
+
+        // Vorgegebene Zahlen in umgekehrter Reihenfolge wieder aufdecken
+        while (coveredCount > 0) {
+            uncover(coveredColumns[--coveredCount]);
+        }
+        return solutionCount;
+    }
+
+    /**
+     * Algorithm X. Wählt immer die Spalte mit den wenigsten Knoten und probiert alle Zeilen dieser
+     * Spalte aus. Jede abgedeckte Spalte wird vor dem Zurückkehren wieder aufgedeckt.
+     *
+     * @param depth Anzahl der bereits gewählten Zeilen
+     */
+    private void search(int depth) {
+        if (right[ROOT] == ROOT) {
+            for (int k = 0; k < depth; k++) {
+                int row = chosenRows[k];
+                solution[row / N] = row % N + 1;
+            }
+            if (solutionCount < STORED_SOLUTIONS) {
+                System.arraycopy(solution, 0, solutions[solutionCount], 0, CELLS);
+            }
+            solutionCount++;
+            return;
+        }
+
+        int col = right[ROOT];
+        for (int c = right[col]; c != ROOT; c = right[c]) {
+            if (size[c] < size[col]) {
+                col = c;
+            }
+        }
+        if (size[col] == 0) {
+            return;
+        }
+
+        cover(col);
+        for (int r = down[col]; r != col && solutionCount < solutionLimit; r = down[r]) {
+            chosenRows[depth] = rowOf[r];
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+
+            search(depth + 1);
+
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(col);
+    }
+
+    /**
+     * @param col Spaltenkopf
+     * @return true, wenn die Spalte aus der Liste der Spaltenköpfe entfernt wurde
+     */
+    private boolean isCovered(int col) {
+        return right[left[col]] != col;
+    }
+
+    private void cover(int col) {
+        right[left[col]] = right[col];
+        left[right[col]] = left[col];
+        for (int i = down[col]; i != col; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int col) {
+        for (int i = up[col]; i != col; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[col]] = col;
+        left[right[col]] = col;
+    }
+}
@@ -13,42 +13,104 @@ package com.example.sudokuscanner;
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
-import android.graphics.Bitmap;
 import android.util.Log;
 
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.TaskCompletionSource;
 
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * Diese Klasse klassifiziert einzelne Ziffern in einem Bild. Es sollte nur eine Zahl im Bild sein
  * und keine weitere Zahlen oder andere störende Artefakte.
+ * Alle Puffer für Ein- und Ausgabe werden einmalig beim Initialisieren angelegt und bei jeder
+ * Klassifikation wiederverwendet. Da der Interpreter nicht thread-sicher ist, sind alle Methoden,
+ * die ihn benutzen, synchronisiert.
+ * Neben dem float Model wird auch ein quantisiertes int8/uint8 Model unterstützt. Ob die Pixel als
+ * float oder als ein Byte pro Pixel übergeben werden, wird anhand des Datentyps des Eingabetensors
+ * entschieden. Liegt tmnist_int8.tflite in den assets, wird dieses Model bevorzugt.
  */
 public class DigitClassifier {
 
     private static final String TAG = "DigitClassifier";
 
+    public static final String FLOAT_MODEL = "tmnist.tflite";
+    public static final String QUANTIZED_MODEL = "tmnist_int8.tflite";
+
     private static final int FLOAT_TYPE_SIZE = 4;
     private static final int PIXEL_SIZE = 1;
     private static final int OUTPUT_CLASSES_COUNT = 10;
+    // Maximale Anzahl an Bildern pro Aufruf, eine pro Zelle
+    private static final int MAX_BATCH = 81;
 
     private final Context context;
+    // Dateiname des Models, null um automatisch das quantisierte Model zu bevorzugen
+    private final String modelFilename;
     private Interpreter interpreter;
     public Boolean isInitialized;
     private final ExecutorService executorService;
     private int inputImageWidth, inputImageHeight, modelInputSize;
+    // Form des Eingabetensors, z.B. [1, 28, 28, 1]. Der erste Eintrag ist die Anzahl der Bilder.
+    private int[] inputShape;
+    private int batchSize;
+
+    // Datentyp von Ein- und Ausgabe und deren Größe in Bytes pro Wert
+    private DataType inputType, outputType;
+    private int inputBytes, outputBytes;
+    // Wert im Eingabetensor für jeden Pixelwert 0-255, nur für quantisierte Eingaben
+    private final byte[] quantizedPixels;
+    // true, wenn der quantisierte Wert dem Pixelwert entspricht (uint8, scale 1/255, zero point 0)
+    private boolean identityInput;
+    // Quantisierung der Ausgabe, score = (q - outputZeroPoint) * outputScale
+    private float outputScale;
+    private int outputZeroPoint;
+
+    // Puffer für MAX_BATCH Bilder bzw. Ergebnisse und deren Ausschnitte pro Anzahl an Bildern
+    private ByteBuffer inputBuffer, outputBuffer;
+    private final ByteBuffer[] inputSlices, outputSlices;
+    // Wiederverwendete Container für runForMultipleInputsOutputs()
+    private final Object[] inputs;
+    private final Map<Integer, Object> outputs;
+    // Pixel einer Zelle, werden mit einem Aufruf aus der Mat kopiert
+    private byte[] pixels;
+    // Zellenindex jedes Bildes im aktuellen Batch
+    private final int[] batchCells;
+    // Für Zellen, die erst umgewandelt oder skaliert werden müssen. Wird erst bei Bedarf angelegt,
+    // damit der Konstruktor nicht von der geladenen OpenCV Bibliothek abhängt.
+    private Mat scratchCell;
+    private Size inputSize;
+    private float lastConfidence;
+    // Sortiert leere Zellen vor dem Aufruf des Models aus
+    private EmptyCellDetector emptyCellDetector;
 
     public DigitClassifier(Context context) {
-        this.context = context;
+        this(context, null);
+    }
+
+    /**
+     * @param context       Context der App
+     * @param modelFilename Dateiname des Models in den assets, null um automatisch das
+     *                      quantisierte Model zu bevorzugen, falls es vorhanden ist
+     */
+    public DigitClassifier(Context context, String modelFilename) {
+        this.context = context.getApplicationContext();
+        this.modelFilename = modelFilename;
 
         this.interpreter = null;
         this.isInitialized = false;
@@ -57,6 +119,14 @@ public class DigitClassifier {
         this.inputImageWidth = 28;
         this.inputImageHeight = 28;
         this.modelInputSize = 0;
+
+        this.inputSlices = new ByteBuffer[MAX_BATCH + 1];
+        this.outputSlices = new ByteBuffer[MAX_BATCH + 1];
+        this.inputs = new Object[1];
+        this.outputs = new HashMap<>();
+        this.batchCells = new int[MAX_BATCH];
+        this.quantizedPixels = new byte[256];
+        this.scratchCell = null;
     }
 
     /**
@@ -64,8 +134,8 @@ public class DigitClassifier {
      *
      * @return Task
      */
-    public Task initialize() {
-        TaskCompletionSource task = new TaskCompletionSource();
+    public Task<Void> initialize() {
+        TaskCompletionSource<Void> task = new TaskCompletionSource<>();
         this.executorService.execute(() -> {
             try {
                 initializeInterpreter();
@@ -81,26 +151,108 @@ public class DigitClassifier {
     }
 
     /**
-     * Initialisiert den TensorflowLite interpreter.
+     * Initialisiert den TensorflowLite interpreter. Das Laden und das Messen der Konfiguration
+     * beim ersten Start laufen ohne die Sperre des Classifiers, nur das Übernehmen des
+     * Interpreters ist synchronisiert. Ein Aufruf von classifyBatch() wartet so nicht auf die
+     * Messung, sondern sieht nur, dass der Classifier noch nicht initialisiert ist.
      */
     private void initializeInterpreter() throws IOException {
-        // Liest die Gewichte aus der tmnist.tflite Datei aus und initialisiert damit das Model
+        // Liest die Gewichte aus der .tflite Datei aus und initialisiert damit das Model
         AssetManager assetManager = context.getAssets();
-        ByteBuffer model = loadModelFile(assetManager, "tmnist.tflite");
-        Interpreter interpreter = new Interpreter(model);
+        String filename = modelFilename != null ? modelFilename : selectModel(assetManager);
+        ByteBuffer model = loadModelFile(assetManager, filename);
+
+        // Threads und XNNPACK werden beim ersten Start auf dem Gerät gemessen
+        InterpreterTuner.Config config = new InterpreterTuner(context, filename)
+                .getConfig(model, MAX_BATCH);
+        setUpInterpreter(model, filename, config);
+    }
+
+    /**
+     * Erstellt den Interpreter mit der gemessenen Konfiguration und legt alle Puffer an.
+     */
+    private synchronized void setUpInterpreter(ByteBuffer model, String filename,
+                                               InterpreterTuner.Config config) {
+        Interpreter interpreter = new Interpreter(model, config.toOptions());
+        Log.d(TAG, "Loaded " + filename + " with options: " + config);
 
         // Liest die Dimension aus der Datei aus, mit der die Bilder klassifiziert werden sollen
-        int[] inputShape = interpreter.getInputTensor(0).shape();
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        inputShape = inputTensor.shape();
         inputImageWidth = inputShape[1];
         inputImageHeight = inputShape[2];
-        modelInputSize = FLOAT_TYPE_SIZE * inputImageWidth * inputImageHeight * PIXEL_SIZE;
+        batchSize = inputShape[0];
+
+        // Datentyp und Quantisierung der Ein- und Ausgabe bestimmen, wie die Puffer gefüllt bzw.
+        // gelesen werden
+        inputType = inputTensor.dataType();
+        inputBytes = bytesPerValue(inputType);
+        if (inputType != DataType.FLOAT32) {
+            Tensor.QuantizationParams params = inputTensor.quantizationParams();
+            identityInput = Quantization.quantizePixels(inputType == DataType.UINT8,
+                    params.getScale(), params.getZeroPoint(), quantizedPixels);
+        }
+        Tensor outputTensor = interpreter.getOutputTensor(0);
+        outputType = outputTensor.dataType();
+        outputBytes = bytesPerValue(outputType);
+        outputScale = outputTensor.quantizationParams().getScale();
+        outputZeroPoint = outputTensor.quantizationParams().getZeroPoint();
+
+        modelInputSize = inputBytes * inputImageWidth * inputImageHeight * PIXEL_SIZE;
+        inputBuffer = ByteBuffer.allocateDirect(MAX_BATCH * modelInputSize);
+        inputBuffer.order(ByteOrder.nativeOrder());
+        outputBuffer = ByteBuffer.allocateDirect(MAX_BATCH * OUTPUT_CLASSES_COUNT * outputBytes);
+        outputBuffer.order(ByteOrder.nativeOrder());
+        Arrays.fill(inputSlices, null);
+        Arrays.fill(outputSlices, null);
+        pixels = new byte[inputImageWidth * inputImageHeight * PIXEL_SIZE];
+        inputSize = new Size(inputImageWidth, inputImageHeight);
+        emptyCellDetector = new EmptyCellDetector(inputImageWidth, inputImageHeight);
 
         this.interpreter = interpreter;
+        warmUp();
 
         isInitialized = true;
         Log.d(TAG, "Initialized TFLite interpreter.");
     }
 
+    /**
+     * Führt eine erste Inferenz mit leerer Eingabe für die größtmögliche Anzahl an Bildern aus.
+     * Dabei legt der Interpreter seinen Speicher an und lädt die Gewichte, sodass der erste
+     * richtige Scan nicht darauf warten muss.
+     */
+    private void warmUp() {
+        long start = System.nanoTime();
+        runBatch(slice(inputBuffer, inputSlices, MAX_BATCH, modelInputSize), MAX_BATCH);
+        Log.d(TAG, "Warm-up inference took " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+
+    /**
+     * @return Quantisiertes Model, falls es in den assets liegt, sonst das float Model
+     */
+    private static String selectModel(AssetManager assetManager) throws IOException {
+        String[] assets = assetManager.list("");
+        if (assets != null && Arrays.asList(assets).contains(QUANTIZED_MODEL)) {
+            return QUANTIZED_MODEL;
+        }
+        return FLOAT_MODEL;
+    }
+
+    /**
+     * @return Größe eines Wertes im Tensor in Bytes
+     */
+    private static int bytesPerValue(DataType type) {
+        switch (type) {
+            case FLOAT32:
+                return FLOAT_TYPE_SIZE;
+            case UINT8:
+            case INT8:
+                return 1;
+            default:
+                throw new IllegalArgumentException("Unsupported tensor type " + type);
+        }
+    }
+
     /**
      * @param assetManager Manager um die .tflite Datei aus dem assets Ordner auszulesen.
      * @param filename     Vollständiger Dateiname der .tflite Datei
@@ -116,90 +268,267 @@ public class DigitClassifier {
     }
 
     /**
-     * Klassifiziert eine Zahl aus einer gegebenen Bitmap.
+     * Klassifiziert eine einzelne Zelle. Die Pixel werden direkt aus der Mat in den vorab
+     * angelegten Eingabepuffer geschrieben, dabei werden keine Objekte erzeugt.
      *
-     * @param bitmap Bitmap die eine Zahl beinhaltet
-     * @return Klassifizierte Zahl als String
+     * @param cell Schwarz-weiß Bild einer Zelle (CV_8UC1) in der Größe des Eingabetensors
+     * @return Klassifizierte Zahl, die Sicherheit steht danach in getLastConfidence()
      */
-    public String classify(Bitmap bitmap) {
-        int maxIndex = 0;
+    public synchronized int classify(Mat cell) {
+        lastConfidence = 0;
+        if (!isInitialized) {
+            Log.d(TAG, "TF Lite Interpreter is not initialized yet.");
+            return 0;
+        }
 
-        if (isInitialized) {
-            // Passe die Größe der Bitmap an, damit das .tflite Model das einlesen kann.
-            Bitmap resizedImage = Bitmap.createScaledBitmap(
-                    bitmap,
-                    inputImageWidth,
-                    inputImageHeight,
-                    true
-            );
+        readCell(cell);
+        writePixels(0);
+        ByteBuffer output = runBatch(slice(inputBuffer, inputSlices, 1, modelInputSize), 1);
 
-            ByteBuffer byteBuffer = convertBitmapToByteBuffer(resizedImage);
+        int digit = argMax(output, 0);
+        lastConfidence = score(output, digit);
+        return digit;
+    }
 
-            // Array wo der komplette Output der Klassifikation gespeichert wird
-            float[][] output = new float[1][OUTPUT_CLASSES_COUNT];
+    /**
+     * @return Sicherheit der zuletzt mit classify() erkannten Zahl
+     */
+    public float getLastConfidence() {
+        return lastConfidence;
+    }
 
-            // Klassifizieren
-            this.interpreter.run(byteBuffer, output);
+    /**
+     * Klassifiziert alle Zellen eines Sudokus mit einem einzigen Aufruf des Interpreters. Dafür
+     * werden alle nicht leeren Zellen in einen Eingabetensor der Form [N, 28, 28, 1] gepackt. Die
+     * Eingabe des Interpreters wird nur angepasst, wenn sich N gegenüber dem letzten Aufruf ändert.
+     * Ob eine Zelle leer ist, entscheidet der EmptyCellDetector nach dem Kopieren der Pixel. Zellen
+     * mit nur wenigen Störpixeln werden so gar nicht erst klassifiziert.
+     * Die Ergebnisse werden in die übergebenen Arrays geschrieben, sodass auch hier keine Objekte
+     * erzeugt werden.
+     *
+     * @param cells       Bilder der Zellen (index = row * 9 + col), null für leere Zellen
+     * @param digits      Erkannte Zahl jeder Zelle, leere Zellen erhalten die Zahl 0
+     * @param confidences Sicherheit der erkannten Zahl jeder Zelle, 0 für leere Zellen
+     * @return Anzahl der klassifizierten Zellen
+     */
+    public synchronized int classifyBatch(Mat[] cells, int[] digits, float[] confidences) {
+        Arrays.fill(digits, 0);
+        Arrays.fill(confidences, 0);
 
-            for (int i = 1; i < output[0].length; i++) {
-                // result ist die Sicherheit, mit der Zahl i die gesuchte Zahl ist.
-                float result = output[0][i];
+        if (!isInitialized) {
+            Log.d(TAG, "TF Lite Interpreter is not initialized yet.");
+            return 0;
+        }
 
-                //Log.d(TAG, "Output for " + i + ": " + result);
+        // Nicht leere Zellen werden direkt hintereinander in den großen Eingabepuffer geschrieben,
+        // der Ausschnitt für count Bilder teilt sich den Speicher damit.
+        int count = 0;
+        for (int i = 0; i < cells.length && count < MAX_BATCH; i++) {
+            if (cells[i] != null && readCell(cells[i])) {
+                writePixels(count * modelInputSize);
+                batchCells[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
 
-                // Wenn die Klassifikation eine Sicherheit von größer 70% hatte, return frühzeitig.
-                if (result >= 0.98f) {
-                    //Log.d(TAG, "Max Result of i = " + i + " is: " + output[0][i]);
-                    Log.d(TAG, "----------------------------");
-                    return Integer.toString(i);
-                }
+        ByteBuffer output = runBatch(slice(inputBuffer, inputSlices, count, modelInputSize), count);
 
-                // Aktualisiere die Zahl, wenn die Sicherheit (result) größer ist als vorher.
-                maxIndex = result > output[0][maxIndex] ? i : maxIndex;
+        for (int k = 0; k < count; k++) {
+            int offset = k * OUTPUT_CLASSES_COUNT;
+            int cell = batchCells[k];
+            digits[cell] = argMax(output, offset);
+            confidences[cell] = score(output, offset + digits[cell]);
+        }
+        return count;
+    }
+
+    /**
+     * Führt das Model für count Bilder aus. Die Container für Ein- und Ausgabe werden
+     * wiederverwendet, da Interpreter.run() bei jedem Aufruf ein neues Array und eine neue Map
+     * anlegt.
+     *
+     * @param input Eingabepuffer mit count Bildern
+     * @param count Anzahl der Bilder
+     * @return Ausgabepuffer mit count * 10 Werten
+     */
+    private ByteBuffer runBatch(ByteBuffer input, int count) {
+        resizeBatch(count);
+        ByteBuffer output = slice(outputBuffer, outputSlices, count,
+                OUTPUT_CLASSES_COUNT * outputBytes);
+
+        input.rewind();
+        inputs[0] = input;
+        outputs.put(0, output);
+        this.interpreter.runForMultipleInputsOutputs(inputs, outputs);
+        return output;
+    }
+
+    /**
+     * Gibt einen Ausschnitt eines Puffers zurück, der genau count Elemente groß ist, da der
+     * Interpreter Puffer mit exakt passender Größe erwartet. Die Ausschnitte teilen sich den
+     * Speicher mit dem großen Puffer und werden pro Größe nur einmal angelegt.
+     *
+     * @param buffer       Puffer für MAX_BATCH Elemente
+     * @param cache        Bereits angelegte Ausschnitte, Index = Anzahl der Elemente
+     * @param count        Anzahl der Elemente
+     * @param bytesPerItem Größe eines Elements in Bytes
+     * @return Ausschnitt mit Position 0
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, ByteBuffer[] cache, int count, int bytesPerItem) {
+        ByteBuffer slice = cache[count];
+        if (slice == null) {
+            ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(0);
+            duplicate.limit(count * bytesPerItem);
+            slice = duplicate.slice().order(ByteOrder.nativeOrder());
+            cache[count] = slice;
+        }
+        slice.clear();
+        return slice;
+    }
+
+    /**
+     * Passt die Anzahl der Bilder im Eingabetensor an.
+     *
+     * @param count Anzahl der Bilder, die im nächsten Aufruf klassifiziert werden
+     */
+    private void resizeBatch(int count) {
+        if (count == batchSize) {
+            return;
+        }
+        int[] shape = inputShape.clone();
+        shape[0] = count;
+        this.interpreter.resizeInput(0, shape);
+        this.interpreter.allocateTensors();
+        batchSize = count;
+    }
+
+    /**
+     * @param output Ausgabepuffer des Models
+     * @param offset Index des ersten Wertes des Bildes im Ausgabepuffer
+     * @return Klasse mit der höchsten Sicherheit
+     */
+    private int argMax(ByteBuffer output, int offset) {
+        int maxIndex = 0;
+        float max = score(output, offset);
+        for (int i = 1; i < OUTPUT_CLASSES_COUNT; i++) {
+            float score = score(output, offset + i);
+            if (score > max) {
+                maxIndex = i;
+                max = score;
             }
-        } else {
-            Log.d(TAG, "TF Lite Interpreter is not initialized yet.");
         }
+        return maxIndex;
+    }
 
-        return Integer.toString(maxIndex);
+    /**
+     * Liest einen Wert aus dem Ausgabepuffer, quantisierte Werte werden in float umgerechnet.
+     *
+     * @param output Ausgabepuffer des Models
+     * @param index  Index des Wertes im Ausgabepuffer
+     * @return Sicherheit der Klasse
+     */
+    private float score(ByteBuffer output, int index) {
+        switch (outputType) {
+            case UINT8:
+                return Quantization.dequantize(output.get(index), true, outputScale,
+                        outputZeroPoint);
+            case INT8:
+                return Quantization.dequantize(output.get(index), false, outputScale,
+                        outputZeroPoint);
+            default:
+                return output.getFloat(index * FLOAT_TYPE_SIZE);
+        }
     }
 
     /**
-     * Beende den TensorflowLite Interpreter.
+     * Beende den TensorflowLite Interpreter. Danach kann der Classifier nicht erneut
+     * initialisiert werden.
      */
     public void close() {
         this.executorService.execute(() -> {
-            Interpreter interpreter = this.interpreter;
-            if (interpreter != null) {
-                interpreter.close();
+            // Warte, bis eine laufende Klassifikation beendet ist
+            synchronized (this) {
+                Interpreter interpreter = this.interpreter;
+                if (interpreter != null) {
+                    interpreter.close();
+                }
+                this.interpreter = null;
+                isInitialized = false;
             }
 
             Log.d(TAG, "Closed TFLite interpreter.");
         });
+        this.executorService.shutdown();
     }
 
     /**
-     * Normalisiert und Konvertiert die Pixelwerte einer Bitmap in einen ByteBuffer
+     * Kopiert die Pixel einer Zelle mit einem einzigen Aufruf in das wiederverwendete pixels Array.
+     * Zellen aus SudokuAnalyser.preprocessCell() haben bereits die Größe des Eingabetensors und einen
+     * Kanal. Andere Bilder werden vorher in eine wiederverwendete Mat umgewandelt bzw. skaliert.
      *
-     * @param bitmap Zu klassifizierende Bitmap
-     * @return ByteBuffer mit den Normalisierten Pixelwerten
+     * @param cell Bild einer Zelle mit 8 Bit pro Kanal
+     * @return true, wenn die Zelle laut EmptyCellDetector wahrscheinlich eine Zahl enthält
      */
-    private ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(modelInputSize);
-        byteBuffer.order(ByteOrder.nativeOrder());
-
-        int[] pixels = new int[inputImageWidth * inputImageHeight];
-        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+    private boolean readCell(Mat cell) {
+        Mat source = cell;
+        if (source.channels() != PIXEL_SIZE) {
+            Imgproc.cvtColor(source, scratchCell(), source.channels() == 4
+                    ? Imgproc.COLOR_RGBA2GRAY : Imgproc.COLOR_RGB2GRAY);
+            source = scratchCell;
+        }
+        if (source.cols() != inputImageWidth || source.rows() != inputImageHeight) {
+            Imgproc.resize(source, scratchCell(), inputSize);
+            source = scratchCell;
+        }
+        source.get(0, 0, pixels);
+        return emptyCellDetector.hasDigit(pixels);
+    }
 
-        for (int pixelValue : pixels) {
-            int r = (pixelValue >> 16 & 0xFF);
-            int g = (pixelValue >> 8 & 0xFF);
-            int b = (pixelValue & 0xFF);
+    private Mat scratchCell() {
+        if (scratchCell == null) {
+            scratchCell = new Mat();
+        }
+        return scratchCell;
+    }
 
-            // Konvertiert RGB zu Grauwerten und normalisiert die Pixel Werte in den Bereich [0..1].
-            float normalizedPixelValue = (r + g + b) / 3.0f / 255.0f;
-            byteBuffer.putFloat(normalizedPixelValue);
+    /**
+     * Schreibt die Pixelwerte aus pixels an eine feste Position im Eingabepuffer. Für das float
+     * Model werden sie normalisiert, für ein quantisiertes Model wird ein Byte pro Pixel
+     * geschrieben.
+     *
+     * @param offset Position im Eingabepuffer in Bytes
+     */
+    private void writePixels(int offset) {
+        if (inputType == DataType.FLOAT32) {
+            for (int i = 0; i < pixels.length; i++) {
+                inputBuffer.putFloat(offset + i * FLOAT_TYPE_SIZE,
+                        Quantization.NORMALIZED[pixels[i] & 0xFF]);
+            }
+        } else if (identityInput) {
+            inputBuffer.position(offset);
+            inputBuffer.put(pixels);
+        } else {
+            for (int i = 0; i < pixels.length; i++) {
+                inputBuffer.put(offset + i, quantizedPixels[pixels[i] & 0xFF]);
+            }
         }
-        return byteBuffer;
+    }
+
+    /**
+     * @return Detector für leere Zellen, z.B. um dessen Schwellwerte anzupassen. Erst nach dem
+     * Initialisieren verfügbar.
+     */
+    public EmptyCellDetector getEmptyCellDetector() {
+        return emptyCellDetector;
+    }
+
+    /**
+     * @return Datentyp des Eingabetensors, FLOAT32 oder bei einem quantisierten Model UINT8/INT8
+     */
+    public DataType getInputType() {
+        return inputType;
     }
 }
@@ -0,0 +1,189 @@
+/*
+
+ * EmptyCellDetector
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Erkennt leere Zellen, bevor sie klassifiziert werden. Nach preprocessCell() bleiben in leeren
+ * Zellen oft einzelne Pixel oder Reste der Zellränder übrig, die das Model als Zahl erkennen würde.
+ * In einem Durchlauf über die Pixel werden deshalb die zusammenhängenden Bereiche (8er Nachbarschaft)
+ * mit Union-Find bestimmt und dabei Anzahl und Schwerpunkt der Pixel jedes Bereichs gezählt. Die
+ * 8er Nachbarschaft ist nötig, da dünne schräge Striche (z.B. in 1, 4 und 7) nach dem Threshold oft
+ * nur über die Ecken der Pixel zusammenhängen.
+ * Eine Zelle enthält nur dann eine Zahl, wenn
+ * - genug Pixel gesetzt sind (minInkRatio),
+ * - der größte Bereich groß genug ist (minComponentPixels) und
+ * - der Schwerpunkt des größten Bereichs nahe der Mitte liegt (maxCentroidOffset).
+ * Alle Arrays werden einmalig angelegt, die Klasse ist nicht thread-sicher.
+ */
+public class EmptyCellDetector {
+
+    private final int width, height;
+
+    // Pixel ab diesem Wert gelten als Teil einer Zahl
+    private int inkThreshold;
+    // Mindestanteil gesetzter Pixel an allen Pixeln der Zelle
+    private float minInkRatio;
+    // Mindestgröße des größten zusammenhängenden Bereichs in Pixeln
+    private int minComponentPixels;
+    // Maximaler Abstand des Schwerpunkts von der Mitte, relativ zur Breite bzw. Höhe
+    private float maxCentroidOffset;
+
+    // Label jedes Pixels, -1 für Hintergrund
+    private final int[] labels;
+    // Union-Find über die Labels und Statistik pro Label
+    private final int[] parent, count;
+    private final long[] sumX, sumY;
+
+    /**
+     * @param width  Breite der Zellen in Pixeln
+     * @param height Höhe der Zellen in Pixeln
+     */
+    public EmptyCellDetector(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        this.inkThreshold = 128;
+        this.minInkRatio = 0.02f;
+        this.minComponentPixels = 12;
+        this.maxCentroidOffset = 0.3f;
+
+        int size = width * height;
+        // Ohne Nachbarn links und in der Reihe darüber entsteht ein neues Label, höchstens eins pro
+        // zweitem Pixel
+        int maxLabels = size / 2 + 1;
+        this.labels = new int[size];
+        this.parent = new int[maxLabels];
+        this.count = new int[maxLabels];
+        this.sumX = new long[maxLabels];
+        this.sumY = new long[maxLabels];
+    }
+
+    /**
+     * @param pixels Pixel der Zelle (width * height Werte, ein Byte pro Pixel, Zahl weiß auf schwarz)
+     * @return true, wenn die Zelle wahrscheinlich eine Zahl enthält
+     */
+    public boolean hasDigit(byte[] pixels) {
+        int next = 0;
+        int ink = 0;
+
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                if ((pixels[i] & 0xFF) < inkThreshold) {
+                    labels[i] = -1;
+                    continue;
+                }
+                ink++;
+
+                // Bereits besuchte Nachbarn: links, oben links, oben und oben rechts
+                int left = x > 0 ? labels[i - 1] : -1;
+                int upLeft = x > 0 && y > 0 ? labels[i - width - 1] : -1;
+                int up = y > 0 ? labels[i - width] : -1;
+                int upRight = x < width - 1 && y > 0 ? labels[i - width + 1] : -1;
+
+                int label = Math.max(Math.max(left, upLeft), Math.max(up, upRight));
+                if (label < 0) {
+                    label = next++;
+                    parent[label] = label;
+                    count[label] = 0;
+                    sumX[label] = 0;
+                    sumY[label] = 0;
+                } else {
+                    join(label, left);
+                    join(label, upLeft);
+                    join(label, up);
+                    join(label, upRight);
+                }
+
+                labels[i] = label;
+                count[label]++;
+                sumX[label] += x;
+                sumY[label] += y;
+            }
+        }
+
+        if (ink == 0 || ink < minInkRatio * width * height) {
+            return false;
+        }
+
+        // Statistik jedes Labels auf die Wurzel seines Bereichs übertragen
+        int largest = -1;
+        for (int label = 0; label < next; label++) {
+            int root = find(label);
+            if (root != label) {
+                count[root] += count[label];
+                sumX[root] += sumX[label];
+                sumY[root] += sumY[label];
+            }
+        }
+        for (int label = 0; label < next; label++) {
+            if (parent[label] == label && (largest < 0 || count[label] > count[largest])) {
+                largest = label;
+            }
+        }
+
+        if (count[largest] < minComponentPixels) {
+            return false;
+        }
+
+        float centroidX = (float) sumX[largest] / count[largest];
+        float centroidY = (float) sumY[largest] / count[largest];
+        float offsetX = Math.abs(centroidX - (width - 1) / 2f) / width;
+        float offsetY = Math.abs(centroidY - (height - 1) / 2f) / height;
+        return offsetX <= maxCentroidOffset && offsetY <= maxCentroidOffset;
+    }
+
+    /**
+     * Vereint den Bereich eines Nachbarn mit dem Bereich des aktuellen Pixels.
+     *
+     * @param neighbour Label des Nachbarn, -1 für Hintergrund
+     */
+    private void join(int label, int neighbour) {
+        if (neighbour >= 0 && neighbour != label) {
+            union(label, neighbour);
+        }
+    }
+
+    /**
+     * Vereint zwei Bereiche, das kleinere Label wird die Wurzel.
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    private int find(int label) {
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    public void setInkThreshold(int inkThreshold) {
+        this.inkThreshold = inkThreshold;
+    }
+
+    public void setMinInkRatio(float minInkRatio) {
+        this.minInkRatio = minInkRatio;
+    }
+
+    public void setMinComponentPixels(int minComponentPixels) {
+        this.minComponentPixels = minComponentPixels;
+    }
+
+    public void setMaxCentroidOffset(float maxCentroidOffset) {
+        this.maxCentroidOffset = maxCentroidOffset;
+    }
+}
@@ -10,7 +10,6 @@
 package com.example.sudokuscanner;
 
 import java.util.Arrays;
-import java.util.Random;
 
 /**
  * Diese Klasse beinhaltet die Spiellogik und managed die Zellen des Sudoku Feldes, sowie
@@ -21,11 +20,35 @@ public class GameLogic {
     private final String TAG = "GameLogic";
 
     private final int N = 9;
+    // Einheiten: 9 Reihen, 9 Spalten und 9 Boxen
+    private final int UNITS = 3 * N;
     private int selectedRow, selectedCol;
 
-    private int[][] sudokuBoard, sudokuBoardSolved;
+    // Beide Felder liegen gepackt in je 6 longs, siehe PackedBoard
+    private final PackedBoard sudokuBoard, sudokuBoardSolved;
 
-    private boolean isSolved, solvable;
+    // Zellen, in denen sich die ersten beiden gefundenen Lösungen unterscheiden (index = row * 9 + col)
+    private final boolean[] ambiguousCells;
+    private int solutionCount;
+    // false, wenn die Suche vorzeitig abgebrochen wurde und solutionCount nur eine Untergrenze ist
+    private boolean solutionsComplete;
+
+    // Laufende Zähler, die bei jedem Zug angepasst werden, statt das Feld neu abzusuchen.
+    // unitDigitCounts enthält pro Einheit 10 Einträge (Index = Zahl, Index 0 bleibt ungenutzt),
+    // unitConflicts zählt pro Einheit die doppelt vergebenen Zahlen.
+    private final int[] unitDigitCounts, unitConflicts;
+    private int filledCount, correctCount, conflictCount;
+
+    // Zellen, die für einen Tipp in Frage kommen: falsch besetzte und leere, nicht mehrdeutige Zellen
+    private final CellSet wrongCells, openCells;
+    // Wenn aktiv, werden bevorzugt Zellen aufgedeckt, die sich als nächstes logisch herleiten lassen
+    private boolean logicalHints;
+    private final ConstraintPropagator hintPropagator;
+    private final int[] hintCells;
+
+    private boolean isSolved, solvable, solutionReady;
+
+    private SudokuSolver solver;
 
     /**
      * Konstruktor. Es werden alle benötigten Variablen initialisiert, die ausgewählte Reihe
@@ -35,10 +58,25 @@ public class GameLogic {
         selectedRow = -1;
         selectedCol = -1;
 
-        sudokuBoard = new int[N][N];
-        sudokuBoardSolved = new int[N][N];
+        sudokuBoard = new PackedBoard();
+        sudokuBoardSolved = new PackedBoard();
+
+        ambiguousCells = new boolean[N * N];
+        solutionCount = 0;
+
+        unitDigitCounts = new int[UNITS * (N + 1)];
+        unitConflicts = new int[UNITS];
+
+        wrongCells = new CellSet();
+        openCells = new CellSet();
+        logicalHints = true;
+        hintPropagator = new ConstraintPropagator();
+        hintCells = new int[N * N];
 
         isSolved = false;
+        solutionReady = false;
+
+        solver = new BitmaskSolver();
     }
 
     /**
@@ -50,32 +88,146 @@ public class GameLogic {
         if (!isSolved) {
             // Führe aus, wenn eine gültige Zelle ausgewählt ist.
             if (this.selectedRow != -1 && this.selectedCol != -1) {
-                this.sudokuBoard[this.selectedRow - 1][this.selectedCol - 1] = num;
+                setCell((this.selectedRow - 1) * N + this.selectedCol - 1, num);
             }
         }
     }
 
+    /**
+     * Schreibt eine Zahl in eine Zelle und passt alle Zähler an. Es werden nur die drei
+     * Einheiten der Zelle angefasst, die Kosten sind also unabhängig von der Größe des Feldes.
+     *
+     * @param cell Zellenindex (index = row * 9 + col)
+     * @param num  Zahl von 0-9, 0 leert die Zelle
+     */
+    private void setCell(int cell, int num) {
+        int old = sudokuBoard.get(cell);
+        if (old == num) {
+            return;
+        }
+
+        if (old != 0) {
+            removeFromUnits(cell, old);
+            filledCount--;
+        }
+        if (solutionReady && old == sudokuBoardSolved.get(cell)) {
+            correctCount--;
+        }
+
+        sudokuBoard.set(cell, num);
+
+        if (num != 0) {
+            addToUnits(cell, num);
+            filledCount++;
+        }
+        if (solutionReady && num == sudokuBoardSolved.get(cell)) {
+            correctCount++;
+        }
+        updateHintCell(cell);
+    }
+
+    /**
+     * Ordnet eine Zelle nach einer Änderung der passenden Menge für Tipps zu.
+     *
+     * @param cell Zellenindex
+     */
+    private void updateHintCell(int cell) {
+        wrongCells.remove(cell);
+        openCells.remove(cell);
+
+        // Mehrdeutige Zellen werden nicht aufgedeckt, da die Lösung dort nicht feststeht
+        int num = sudokuBoard.get(cell);
+        if (!solutionReady || num == sudokuBoardSolved.get(cell) || ambiguousCells[cell]) {
+            return;
+        }
+        if (num == 0) {
+            openCells.add(cell);
+        } else {
+            wrongCells.add(cell);
+        }
+    }
+
+    private void addToUnits(int cell, int num) {
+        addToUnit(BitmaskSolver.ROW_OF[cell], num);
+        addToUnit(N + BitmaskSolver.COL_OF[cell], num);
+        addToUnit(2 * N + BitmaskSolver.BOX_OF[cell], num);
+    }
+
+    private void addToUnit(int unit, int num) {
+        // War die Zahl schon in der Einheit vorhanden, entsteht ein weiterer Konflikt
+        if (unitDigitCounts[unit * (N + 1) + num]++ > 0) {
+            unitConflicts[unit]++;
+            conflictCount++;
+        }
+    }
+
+    private void removeFromUnits(int cell, int num) {
+        removeFromUnit(BitmaskSolver.ROW_OF[cell], num);
+        removeFromUnit(N + BitmaskSolver.COL_OF[cell], num);
+        removeFromUnit(2 * N + BitmaskSolver.BOX_OF[cell], num);
+    }
+
+    private void removeFromUnit(int unit, int num) {
+        if (--unitDigitCounts[unit * (N + 1) + num] > 0) {
+            unitConflicts[unit]--;
+            conflictCount--;
+        }
+    }
+
+    /**
+     * Berechnet alle Zähler einmalig neu, z.B. wenn ein neues Feld oder die Lösung übernommen wird.
+     */
+    private void recountCells() {
+        Arrays.fill(unitDigitCounts, 0);
+        Arrays.fill(unitConflicts, 0);
+        filledCount = 0;
+        correctCount = 0;
+        conflictCount = 0;
+        wrongCells.clear();
+        openCells.clear();
+
+        for (int cell = 0; cell < N * N; cell++) {
+            int num = sudokuBoard.get(cell);
+            if (num != 0) {
+                addToUnits(cell, num);
+                filledCount++;
+            }
+            if (solutionReady && num == sudokuBoardSolved.get(cell)) {
+                correctCount++;
+            }
+            updateHintCell(cell);
+        }
+    }
+
     /**
      * Getter und Setter für das (ungelöste) Sudoku Feld
      */
-    public int[][] getSudokuBoard() {
+    public PackedBoard getSudokuBoard() {
         return this.sudokuBoard;
     }
 
     public void setSudokuBoard(int[][] cells) {
-        this.sudokuBoard = deepCopy(cells);
-        setSolvedSudokuBoard(deepCopy(cells));
+        setSudokuBoard(PackedBoard.fromArray(cells));
+    }
+
+    public void setSudokuBoard(PackedBoard board) {
+        this.sudokuBoard.copyFrom(board);
+        this.sudokuBoardSolved.copyFrom(board);
+        clearAmbiguousCells();
+        solutionReady = false;
+        recountCells();
     }
 
     /**
      * Getter und Setter für alle Variablen
      */
-    public int[][] getSolvedSudokuBoard() {
+    public PackedBoard getSolvedSudokuBoard() {
         return this.sudokuBoardSolved;
     }
 
-    public void setSolvedSudokuBoard(int[][] solvedSudoku) {
-        this.sudokuBoardSolved = solvedSudoku;
+    public void setSolvedSudokuBoard(PackedBoard solvedSudoku) {
+        this.sudokuBoardSolved.copyFrom(solvedSudoku);
+        recountCells();
     }
 
 
@@ -106,6 +258,84 @@ public class GameLogic {
     }
 
 
+    public boolean isSolutionReady() {
+        return this.solutionReady;
+    }
+
+    /**
+     * @return true, wenn die Suche vollständig war und genau eine Lösung gefunden hat
+     */
+    public boolean isUnique() {
+        return this.solutionsComplete && this.solutionCount == 1;
+    }
+
+    public boolean isAmbiguousCell(int row, int col) {
+        return this.ambiguousCells[row * N + col];
+    }
+
+
+    public int getFilledCount() {
+        return this.filledCount;
+    }
+
+    /**
+     * @return Anzahl der doppelt vergebenen Zahlen über alle Reihen, Spalten und Boxen
+     */
+    public int getConflictCount() {
+        return this.conflictCount;
+    }
+
+    /**
+     * @param unit Einheit, 0-8 für die Reihen, 9-17 für die Spalten und 18-26 für die Boxen
+     * @return Anzahl der doppelt vergebenen Zahlen in der Einheit
+     */
+    public int getUnitConflicts(int unit) {
+        return this.unitConflicts[unit];
+    }
+
+    /**
+     * @return true, wenn die Zahl in der Zelle in ihrer Reihe, Spalte oder Box mehrfach vorkommt
+     */
+    public boolean isConflictCell(int row, int col) {
+        int cell = row * N + col;
+        int num = sudokuBoard.get(cell);
+        if (num == 0 || conflictCount == 0) {
+            return false;
+        }
+        return unitDigitCounts[BitmaskSolver.ROW_OF[cell] * (N + 1) + num] > 1
+                || unitDigitCounts[(N + BitmaskSolver.COL_OF[cell]) * (N + 1) + num] > 1
+                || unitDigitCounts[(2 * N + BitmaskSolver.BOX_OF[cell]) * (N + 1) + num] > 1;
+    }
+
+
+    public SudokuSolver getSolver() {
+        return this.solver;
+    }
+
+    /**
+     * Wählt den Algorithmus, mit dem solveSudoku(grid) das Sudoku löst. Standardmäßig wird der
+     * BitmaskSolver verwendet, alternativ z.B. der DancingLinksSolver.
+     *
+     * @param solver Solver, der ab jetzt verwendet werden soll
+     */
+    public void setSolver(SudokuSolver solver) {
+        this.solver = solver;
+    }
+
+
+    public boolean getLogicalHints() {
+        return this.logicalHints;
+    }
+
+    /**
+     * @param logicalHints true, wenn Tipps bevorzugt die nächste logisch herleitbare Zelle aufdecken
+     *                     sollen, false für eine beliebige offene Zelle
+     */
+    public void setLogicalHints(boolean logicalHints) {
+        this.logicalHints = logicalHints;
+    }
+
+
     public boolean getIsSolved() {
         return this.isSolved;
     }
@@ -115,62 +345,158 @@ public class GameLogic {
     }
 
     /**
-     * Kopiert den Inhalt eines 2D Arrays. Nützlich um sicher zu gehen, wenn man die Elemente
-     * in einem 2D Array verändern will, ohne zu riskieren die Elemente des Originalen Arrays
-     * zu verändern.
+     * Deckt eine noch nicht gelöste Zahl aus dem gelösten Feld auf. Falsch gesetzte Zahlen werden
+     * zuerst korrigiert, danach wird eine leere Zelle aufgedeckt. Die Kandidaten werden in
+     * wrongCells und openCells bei jedem Zug mitgeführt, sodass kein Zufall und kein erneutes
+     * Absuchen nötig ist.
      *
-     * @param original Originale 2D Array
-     * @return Kopiertes 2D Array
+     * @return true, wenn eine noch nicht aufgedeckte Zahl gefunden wurde, false wenn das Feld
+     * bereits gelöst ist.
      */
-    public int[][] deepCopy(int[][] original) {
-        if (original == null) {
-            return null;
+    public boolean hint() {
+        if (!solutionReady) {
+            return false;
         }
 
-        final int[][] result = new int[original.length][];
-        for (int i = 0; i < original.length; i++) {
-            result[i] = Arrays.copyOf(original[i], original[i].length);
+        int cell = nextHintCell();
+        if (cell == -1) {
+            return false;
         }
-        return result;
+        setCell(cell, sudokuBoardSolved.get(cell));
+        return true;
     }
 
     /**
-     * Fügt dem Sudoku Feld eine zufällig ausgewählte Zahl, die noch nicht gelöst wurde, aus dem
-     * gelösten Array zu.
-     *
-     * @return true, wenn eine noch nicht aufgedeckte Zahl gefunden wurde, false wenn das Feld
-     * bereits gelöst ist.
+     * @return Zelle, die beim nächsten Tipp aufgedeckt wird, oder -1 wenn es keine gibt
      */
-    public boolean hint() {
-        if (!checkIfSolved()) {
-            Random rand = new Random();
-            int row = rand.nextInt(9);
-            int col = rand.nextInt(9);
-            if (sudokuBoard[row][col] == 0 ||
-                    sudokuBoard[row][col] != sudokuBoardSolved[row][col]) {
-                sudokuBoard[row][col] = sudokuBoardSolved[row][col];
-                return true;
+    private int nextHintCell() {
+        if (!wrongCells.isEmpty()) {
+            return wrongCells.last();
+        }
+        if (openCells.isEmpty()) {
+            return -1;
+        }
+        if (logicalHints) {
+            int cell = logicalHintCell();
+            if (cell != -1) {
+                return cell;
             }
-            return hint();
         }
-        return false;
+        return openCells.last();
+    }
+
+    /**
+     * Sucht mit dem ConstraintPropagator eine Zelle, die sich auf dem aktuellen Feld als nächstes
+     * ohne Raten herleiten lässt (Naked oder Hidden Single). Ein solcher Tipp ist für den Benutzer
+     * nachvollziehbar, statt eine beliebige Zahl aufzudecken.
+     *
+     * @return Zellenindex oder -1, wenn keine offene Zelle direkt herleitbar ist
+     */
+    private int logicalHintCell() {
+        for (int cell = 0; cell < N * N; cell++) {
+            hintCells[cell] = sudokuBoard.get(cell);
+        }
+        if (!hintPropagator.load(hintCells)) {
+            return -1;
+        }
+        int cell = hintPropagator.findSingle();
+        return cell != -1 && openCells.contains(cell) ? cell : -1;
     }
 
     /**
-     * Überprüft, ob das Sudoku Feld vom Benutzer gelöst wurde, indem das Sudoku Feld mit dem gelösten
-     * Sudoku Array Zahl für Zahl verglichen wird.
+     * Überprüft, ob das Sudoku Feld vom Benutzer gelöst wurde. Dafür wird nur der Zähler der
+     * richtig gesetzten Zellen abgefragt, der bei jedem Zug in setCell() angepasst wird.
      *
-     * @return true, wenn alle Zahlen richtig gelöst wurden, false sobald eine falsche Zahl gefunden wurde.
+     * @return true, wenn alle Zahlen richtig gelöst wurden, false sobald eine falsche Zahl gefunden
+     * wurde oder die Lösung noch nicht berechnet ist.
      */
     public boolean checkIfSolved() {
-        for (int row = 0; row < N; row++) {
-            for (int col = 0; col < N; col++) {
-                if (sudokuBoard[row][col] != sudokuBoardSolved[row][col]) {
-                    return false;
-                }
+        return solutionReady && correctCount == N * N;
+    }
+
+    /**
+     * Löst ein teilweise gefülltes Sudoku mit dem ausgewählten Solver (standardmäßig der
+     * Bitmasken-Solver). Das ist deutlich schneller als das Backtracking aus
+     * solveSudoku(grid, row, col), da keine Reihen, Spalten und Boxen abgesucht werden müssen.
+     *
+     * @param board Sudoku Feld, wird mit der Lösung überschrieben
+     * @return true wenn das Sudoku gelöst werden konnte, false wenn keine Lösung gefunden werden
+     * konnte.
+     */
+    public boolean solveSudoku(PackedBoard board) {
+        return solver.solve(board);
+    }
+
+    /**
+     * Zählt die Lösungen des Sudoku Feldes mit dem ausgewählten Solver. Die Suche bricht ab, sobald
+     * limit Lösungen gefunden wurden, mit limit = 2 lässt sich also schnell prüfen, ob das Sudoku
+     * eindeutig lösbar ist.
+     * Die erste gefundene Lösung wird als gelöstes Sudoku Feld übernommen. Gibt es mehr als eine
+     * Lösung, werden alle Zellen markiert, in denen sich die ersten beiden Lösungen unterscheiden.
+     * In diesem Fall wurde vermutlich eine Zahl falsch eingelesen.
+     *
+     * @param limit Maximale Anzahl an Lösungen, nach denen gesucht wird
+     * @return Anzahl der gefundenen Lösungen, höchstens limit
+     */
+    public int countSolutions(int limit) {
+        int count = solver.countSolutions(sudokuBoard, limit);
+        setSolutions(count,
+                count > 0 ? solver.getSolution(0) : null,
+                count > 1 ? solver.getSolution(1) : null);
+        return count;
+    }
+
+    /**
+     * Übernimmt das Ergebnis einer Lösungssuche, z.B. aus dem SolveExecutor. Die erste Lösung wird
+     * als gelöstes Sudoku Feld übernommen, Zellen in denen sich die ersten beiden Lösungen
+     * unterscheiden, werden als mehrdeutig markiert. Ohne Lösung bleibt isSolutionReady() false.
+     *
+     * @param count  Anzahl der gefundenen Lösungen
+     * @param first  Erste Lösung mit 81 Zahlen (index = row * 9 + col) oder null
+     * @param second Zweite Lösung oder null
+     */
+    public void setSolutions(int count, int[] first, int[] second) {
+        setSolutions(count, first, second, true);
+    }
+
+    /**
+     * Wie setSolutions(count, first, second), aber für eine Suche, die vorzeitig abgebrochen worden
+     * sein kann, z.B. wegen einer Zeitüberschreitung. Die erste Lösung wird trotzdem übernommen,
+     * das Sudoku gilt dann aber nicht als eindeutig, da eine zweite Lösung nicht ausgeschlossen ist.
+     *
+     * @param complete false, wenn count nur eine Untergrenze ist
+     */
+    public void setSolutions(int count, int[] first, int[] second, boolean complete) {
+        clearAmbiguousCells();
+        solutionCount = count;
+        solutionsComplete = complete;
+
+        if (count > 0) {
+            sudokuBoardSolved.setCells(first);
+        }
+        if (count > 1) {
+            for (int i = 0; i < N * N; i++) {
+                ambiguousCells[i] = first[i] != second[i];
             }
         }
-        return true;
+        // Ohne Lösung enthält das gelöste Feld nur die Vorgaben und darf weder für Tipps noch für
+        // checkIfSolved() benutzt werden
+        solutionReady = count > 0;
+        // Die richtig gesetzten Zellen werden einmalig gezählt, danach nur noch pro Zug angepasst
+        recountCells();
+    }
+
+    /**
+     * Überschreibt das Sudoku Feld mit der Lösung.
+     */
+    public void revealSolution() {
+        this.sudokuBoard.copyFrom(sudokuBoardSolved);
+        recountCells();
+    }
+
+    private void clearAmbiguousCells() {
+        Arrays.fill(ambiguousCells, false);
+        solutionCount = 0;
     }
 
     /**
@@ -184,20 +510,22 @@ public class GameLogic {
      */
     public boolean solveSudoku(int[][] grid, int row, int col) {
 
-        // Wenn das Ende des Sudoku Feldes erreicht würde, gilt das Sudoku als gelöst.
-        if (row == N - 1 && col == N)
-            return true;
+        // Überspringe Zellen, die bereits eine Zahl besitzen, ohne dafür eine neue Rekursionsebene
+        // zu öffnen. So ist die Rekursionstiefe höchstens die Anzahl der leeren Zellen.
+        while (col == N || grid[row][col] != 0) {
+            // Wenn das Ende des Sudoku Feldes erreicht würde, gilt das Sudoku als gelöst.
+            if (row == N - 1 && col >= N - 1)
+                return true;
 
-        // Wenn Ende der Spalte erreicht wurde, gehe in die nächste Reihe.
-        if (col == N) {
-            row++;
-            col = 0;
+            // Wenn Ende der Spalte erreicht wurde, gehe in die nächste Reihe.
+            if (col >= N - 1) {
+                row++;
+                col = 0;
+            } else {
+                col++;
+            }
         }
 
-        // Wenn die Zelle bereits eine Zahl besitzt, gehe rekursiv in die nächste Spalte
-        if (grid[row][col] != 0)
-            return solveSudoku(grid, row, col + 1);
-
         for (int num = 1; num < 10; num++) {
 
             // Wenn eine Zahl ohne Konflikte plaziert werden kann, schreibe die Zahl und gehe rekursiv
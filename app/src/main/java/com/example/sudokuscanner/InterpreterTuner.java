@@ -0,0 +1,273 @@
+/*
+
+ * InterpreterTuner
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wählt die schnellste Konfiguration für den TensorflowLite Interpreter auf diesem Gerät aus.
+ * Beim ersten Start werden einige Konfigurationen (Anzahl Threads, XNNPACK) mit einem vollen Batch
+ * gemessen und die schnellste in einer eigenen SharedPreferences Datei gespeichert, getrennt von
+ * den Einstellungen des Benutzers. Bei späteren Starts wird nur noch die gespeicherte
+ * Konfiguration gelesen. Es werden ausschließlich CPU-Konfigurationen getestet, GPU und NNAPI
+ * werden nicht verwendet. FP16 wird deshalb nicht gemessen: setAllowFp16PrecisionForFp32 wirkt nur
+ * mit dem GPU- und NNAPI-Delegate, auf der CPU würde dieselbe Konfiguration zweimal gemessen.
+ */
+public class InterpreterTuner {
+
+    private static final String TAG = "InterpreterTuner";
+
+    private static final String PREFS_NAME = "interpreter_tuning";
+
+    private static final String KEY_THREADS = "interpreter_threads";
+    private static final String KEY_XNNPACK = "interpreter_xnnpack";
+    // Nach einem Systemupdate oder mit einem anderen Model wird neu gemessen
+    private static final String KEY_TUNED_FOR = "interpreter_tuned_for";
+
+    private static final int MAX_THREADS = 4;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private final SharedPreferences sharedPref;
+    private final String tunedFor;
+
+    /**
+     * @param context       Context der App
+     * @param modelFilename Dateiname des Models, für das die Konfiguration gilt
+     */
+    public InterpreterTuner(Context context, String modelFilename) {
+        this.sharedPref = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.tunedFor = Build.FINGERPRINT + "/" + modelFilename;
+    }
+
+    /**
+     * Gibt die gespeicherte Konfiguration zurück oder misst beim ersten Aufruf alle Kandidaten und
+     * speichert den schnellsten. Muss im Hintergrund aufgerufen werden.
+     *
+     * @param model     Model Daten der .tflite Datei
+     * @param batchSize Anzahl an Bildern pro Aufruf, mit der gemessen wird
+     * @return Konfiguration für den Interpreter
+     */
+    public Config getConfig(ByteBuffer model, int batchSize) {
+        Config stored = load();
+        if (stored != null) {
+            return stored;
+        }
+
+        Config best = tune(model, batchSize);
+        store(best);
+        return best;
+    }
+
+    /**
+     * Löscht die gespeicherte Konfiguration, beim nächsten Start wird neu gemessen.
+     */
+    public void reset() {
+        sharedPref.edit()
+                .remove(KEY_THREADS)
+                .remove(KEY_XNNPACK)
+                .remove(KEY_TUNED_FOR)
+                .apply();
+    }
+
+    private Config load() {
+        if (!tunedFor.equals(sharedPref.getString(KEY_TUNED_FOR, null))) {
+            return null;
+        }
+        return new Config(
+                sharedPref.getInt(KEY_THREADS, 1),
+                sharedPref.getBoolean(KEY_XNNPACK, true));
+    }
+
+    private void store(Config config) {
+        sharedPref.edit()
+                .putInt(KEY_THREADS, config.numThreads)
+                .putBoolean(KEY_XNNPACK, config.useXnnpack)
+                .putString(KEY_TUNED_FOR, tunedFor)
+                .apply();
+    }
+
+    /**
+     * Misst alle Kandidaten und gibt den schnellsten zurück. Kann ein Kandidat auf dem Gerät nicht
+     * erstellt werden, wird er übersprungen.
+     */
+    private Config tune(ByteBuffer model, int batchSize) {
+        Config best = null;
+        long bestNanos = Long.MAX_VALUE;
+
+        for (Config config : candidates()) {
+            try {
+                long nanos = measure(model, batchSize, config);
+                Log.d(TAG, config + ": " + nanos / 1000 + "us per batch of " + batchSize);
+                if (nanos < bestNanos) {
+                    bestNanos = nanos;
+                    best = config;
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Skipping " + config, e);
+            }
+        }
+
+        if (best == null) {
+            best = new Config(1, false);
+        }
+        Log.d(TAG, "Selected " + best);
+        return best;
+    }
+
+    /**
+     * @return Konfigurationen, die gemessen werden
+     */
+    private static List<Config> candidates() {
+        int threads = bigCoreCount();
+        List<Config> candidates = new ArrayList<>();
+        candidates.add(new Config(1, true));
+        if (threads > 1) {
+            candidates.add(new Config(threads, true));
+            candidates.add(new Config(threads, false));
+        } else {
+            candidates.add(new Config(1, false));
+        }
+        return candidates;
+    }
+
+    /**
+     * @return Median der Laufzeit eines Batches in Nanosekunden
+     */
+    private static long measure(ByteBuffer model, int batchSize, Config config) {
+        Interpreter interpreter = new Interpreter(model, config.toOptions());
+        try {
+            int[] shape = interpreter.getInputTensor(0).shape().clone();
+            shape[0] = batchSize;
+            interpreter.resizeInput(0, shape);
+            interpreter.allocateTensors();
+
+            ByteBuffer input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes());
+            input.order(ByteOrder.nativeOrder());
+            ByteBuffer output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes());
+            output.order(ByteOrder.nativeOrder());
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(interpreter, input, output);
+            }
+            long[] times = new long[MEASURED_RUNS];
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                run(interpreter, input, output);
+                times[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            return times[MEASURED_RUNS / 2];
+        } finally {
+            interpreter.close();
+        }
+    }
+
+    private static void run(Interpreter interpreter, ByteBuffer input, ByteBuffer output) {
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+    }
+
+    /**
+     * Zählt die schnellen Kerne eines big.LITTLE Prozessors anhand ihrer maximalen Taktfrequenz.
+     * Threads auf den langsamen Kernen bremsen die Inferenz eher, als dass sie helfen. Sind alle
+     * Kerne gleich schnell oder ist die Frequenz nicht lesbar, wird die Hälfte der Kerne genommen.
+     *
+     * @return Anzahl Threads zwischen 1 und MAX_THREADS
+     */
+    static int bigCoreCount() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long[] maxFreq = new long[cores];
+        long slowest = Long.MAX_VALUE;
+        for (int i = 0; i < cores; i++) {
+            maxFreq[i] = readMaxFreq(i);
+            if (maxFreq[i] <= 0) {
+                return clampThreads(cores / 2);
+            }
+            slowest = Math.min(slowest, maxFreq[i]);
+        }
+
+        int big = 0;
+        for (long freq : maxFreq) {
+            if (freq > slowest) {
+                big++;
+            }
+        }
+        return clampThreads(big == 0 ? cores / 2 : big);
+    }
+
+    private static int clampThreads(int threads) {
+        return Math.max(1, Math.min(MAX_THREADS, threads));
+    }
+
+    /**
+     * @return Maximale Taktfrequenz des Kerns in kHz, 0 wenn sie nicht gelesen werden kann
+     */
+    private static long readMaxFreq(int core) {
+        String path = "/sys/devices/system/cpu/cpu" + core + "/cpufreq/cpuinfo_max_freq";
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            return Long.parseLong(reader.readLine().trim());
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Einstellungen für den Interpreter.
+     */
+    public static class Config {
+
+        private final int numThreads;
+        private final boolean useXnnpack;
+
+        Config(int numThreads, boolean useXnnpack) {
+            this.numThreads = numThreads;
+            this.useXnnpack = useXnnpack;
+        }
+
+        public int getNumThreads() {
+            return numThreads;
+        }
+
+        public boolean isUseXnnpack() {
+            return useXnnpack;
+        }
+
+        /**
+         * @return Neue Interpreter.Options mit diesen Einstellungen
+         */
+        public Interpreter.Options toOptions() {
+            Interpreter.Options options = new Interpreter.Options();
+            options.setNumThreads(numThreads);
+            options.setUseXNNPACK(useXnnpack);
+            return options;
+        }
+
+        @Override
+        public String toString() {
+            return "threads=" + numThreads + ", xnnpack=" + useXnnpack;
+        }
+    }
+}
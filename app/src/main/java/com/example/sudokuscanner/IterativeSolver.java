@@ -0,0 +1,154 @@
+/*
+
+ * IterativeSolver
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Variante des BitmaskSolver ohne Rekursion. Statt des Java-Stacks wird ein eigener Stack aus
+ * zwei int-Arrays mit fester Größe verwendet: pro Ebene die noch nicht probierten Kandidaten und
+ * die aktuell gesetzte Zahl. Dadurch kann die Suche nach einer bestimmten Anzahl an Knoten
+ * unterbrochen und später mit resume() fortgesetzt werden, z.B. um eine lange Suche auf mehrere
+ * Zeitscheiben zu verteilen oder abzubrechen.
+ */
+public class IterativeSolver extends BitmaskSolver {
+
+    private static final String TAG = "IterativeSolver";
+
+    // Rückgabewerte von resume()
+    public static final int SOLVED = 0;
+    public static final int EXHAUSTED = 1;
+    public static final int PAUSED = 2;
+
+    private static final int CELLS = 81;
+
+    // Stack der Suche: noch nicht probierte Kandidaten und gesetzte Zahl (als Bit) pro Ebene
+    private final int[] remaining, placedBit;
+    private int depth;
+    // true, wenn auf der nächsten Ebene eine neue Zelle gewählt werden muss
+    private boolean descend;
+    private boolean exhausted;
+    private long nodesVisited;
+
+    public IterativeSolver() {
+        super();
+        remaining = new int[CELLS];
+        placedBit = new int[CELLS];
+        exhausted = true;
+    }
+
+    /**
+     * Bereitet eine neue Suche vor. Die eigentliche Suche startet erst mit resume().
+     *
+     * @param board Sudoku Feld, leere Zellen haben den Wert 0
+     * @return false, wenn das Feld keine Lösung haben kann
+     */
+    public boolean start(PackedBoard board) {
+        depth = 0;
+        descend = true;
+        nodesVisited = 0;
+        solutionCount = 0;
+        exhausted = !load(board);
+        return !exhausted;
+    }
+
+    /**
+     * Setzt die Suche fort, bis eine Lösung gefunden wurde, alle Möglichkeiten ausprobiert wurden
+     * oder maxNodes weitere Zellen besetzt wurden. Nach SOLVED steht die Lösung in getSolution()
+     * (für die ersten beiden Lösungen) und ein weiterer Aufruf sucht nach der nächsten Lösung.
+     *
+     * @param maxNodes Maximale Anzahl an Knoten, die in diesem Aufruf besucht werden
+     * @return SOLVED, EXHAUSTED oder PAUSED
+     */
+    public int resume(long maxNodes) {
+        long budget = maxNodes;
+
+        while (!exhausted) {
+            if (descend) {
+                if (depth == emptyCount) {
+                    if (solutionCount < STORED_SOLUTIONS) {
+                        System.arraycopy(cells, 0, solutions[solutionCount], 0, CELLS);
+                    }
+                    solutionCount++;
+
+                    // Beim nächsten Aufruf wird ab der letzten Ebene weiter gesucht
+                    descend = false;
+                    depth--;
+                    exhausted = depth < 0;
+                    return SOLVED;
+                }
+                if (budget <= 0) {
+                    return PAUSED;
+                }
+                budget--;
+                nodesVisited++;
+
+                remaining[depth] = selectCell(depth);
+                placedBit[depth] = 0;
+                descend = false;
+            }
+
+            int cell = emptyCells[depth];
+            if (placedBit[depth] != 0) {
+                remove(cell, placedBit[depth]);
+                placedBit[depth] = 0;
+            }
+
+            int candidates = remaining[depth];
+            if (candidates == 0) {
+                // Alle Kandidaten probiert, gehe eine Ebene zurück
+                depth--;
+                exhausted = depth < 0;
+                continue;
+            }
+
+            int bit = candidates & -candidates;
+            remaining[depth] = candidates ^ bit;
+            place(cell, bit);
+            placedBit[depth] = bit;
+            depth++;
+            descend = true;
+        }
+        return EXHAUSTED;
+    }
+
+    /**
+     * @return Anzahl der Zellen, die seit start() besetzt wurden
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * @return Anzahl der seit start() gefundenen Lösungen
+     */
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    @Override
+    public boolean solve(PackedBoard board) {
+        if (!start(board) || resume(Long.MAX_VALUE) != SOLVED) {
+            return false;
+        }
+
+        board.setCells(cells);
+        return true;
+    }
+
+    @Override
+    public int countSolutions(PackedBoard board, int limit) {
+        if (limit <= 0 || !start(board)) {
+            return 0;
+        }
+        while (solutionCount < limit && resume(Long.MAX_VALUE) == SOLVED) {
+            // Suche nach der nächsten Lösung
+        }
+        return solutionCount;
+    }
+}
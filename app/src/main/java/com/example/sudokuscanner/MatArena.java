@@ -0,0 +1,86 @@
+/*
+
+ * MatArena
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merkt sich alle Mats, die während eines Scans angelegt werden, und gibt sie am Ende des Scans
+ * gemeinsam frei. Ohne release() wird der native Speicher einer Mat erst freigegeben, wenn der
+ * Garbage Collector den Finalizer ausführt, bei wiederholten Scans wächst der native Heap dadurch
+ * stark an.
+ * Für Debug Ausgaben wird mitgezählt, wie viele Mats gerade leben und wie viele Bytes sie belegen.
+ * Die Methoden sind synchronisiert, da die Zellen in mehreren Threads vorverarbeitet werden.
+ */
+final class MatArena {
+
+    private static final String TAG = "MatArena";
+
+    private final List<Mat> mats = new ArrayList<>();
+    // Anzahl aller bisher angelegten Mats und der höchste Stand lebender Mats im aktuellen Scan
+    private int tracked, peakLive;
+
+    /**
+     * @param mat Neue Mat, die am Ende des Scans freigegeben werden soll
+     * @return Dieselbe Mat, damit der Aufruf direkt um new Mat() gelegt werden kann
+     */
+    synchronized <T extends Mat> T track(T mat) {
+        mats.add(mat);
+        tracked++;
+        peakLive = Math.max(peakLive, mats.size());
+        return mat;
+    }
+
+    /**
+     * Gibt eine Mat sofort frei, z.B. ein großes Zwischenbild, das nicht mehr gebraucht wird.
+     */
+    synchronized void release(Mat mat) {
+        mat.release();
+        mats.remove(mat);
+    }
+
+    /**
+     * @return Anzahl der Mats, die noch nicht freigegeben wurden
+     */
+    synchronized int getLiveMats() {
+        return mats.size();
+    }
+
+    /**
+     * @return Größe der Pixeldaten aller noch nicht freigegebenen Mats in Bytes. Teilen sich
+     * mehrere Mats denselben Speicher (z.B. row() oder submat()), wird er mehrfach gezählt.
+     */
+    synchronized long getLiveBytes() {
+        long bytes = 0;
+        for (Mat mat : mats) {
+            bytes += mat.total() * mat.elemSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Gibt alle Mats des Scans frei und schreibt die Zähler ins Log.
+     */
+    synchronized void releaseAll() {
+        Log.d(TAG, "Releasing " + mats.size() + " live Mats (" + getLiveBytes() / 1024
+                + " KB), " + tracked + " created, peak " + peakLive + " live");
+        for (Mat mat : mats) {
+            mat.release();
+        }
+        mats.clear();
+        tracked = 0;
+        peakLive = 0;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+
+ * PackedBoard
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import java.util.Arrays;
+
+/**
+ * Kompaktes Sudoku Feld. Jede der 81 Zellen belegt 4 Bit (ein Nibble) in einem long, ein long
+ * fasst also 16 Zellen und das ganze Feld passt in 6 longs. Kopieren, Vergleichen und der Hashcode
+ * arbeiten damit auf 6 Werten statt auf 81 Zellen in 9 einzelnen Arrays.
+ * Zellen werden über ihren Index (index = row * 9 + col) oder über Reihe und Spalte adressiert,
+ * leere Zellen haben den Wert 0.
+ */
+public final class PackedBoard {
+
+    private static final int N = 9;
+    private static final int CELLS = N * N;
+
+    private static final int CELLS_PER_WORD = 16;
+    private static final int WORDS = (CELLS + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+
+    private final long[] words;
+
+    public PackedBoard() {
+        words = new long[WORDS];
+    }
+
+    /**
+     * Erzeugt ein Feld aus einem 9x9 Array, z.B. aus dem Intent der ConfirmPictureActivity.
+     *
+     * @param grid Sudoku Feld, leere Zellen haben den Wert 0
+     * @return Neues Feld mit dem Inhalt von grid
+     */
+    public static PackedBoard fromArray(int[][] grid) {
+        PackedBoard board = new PackedBoard();
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                board.set(row * N + col, grid[row][col]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return Inhalt des Feldes als neues 9x9 Array
+     */
+    public int[][] toArray() {
+        int[][] grid = new int[N][N];
+        for (int i = 0; i < CELLS; i++) {
+            grid[i / N][i % N] = get(i);
+        }
+        return grid;
+    }
+
+    /**
+     * @param cell Zellenindex von 0-80
+     * @return Zahl in der Zelle, 0 wenn die Zelle leer ist
+     */
+    public int get(int cell) {
+        return (int) (words[cell >>> 4] >>> ((cell & 15) << 2)) & 0xF;
+    }
+
+    public int get(int row, int col) {
+        return get(index(row, col));
+    }
+
+    /**
+     * @param cell  Zellenindex von 0-80
+     * @param value Zahl von 0-9, 0 leert die Zelle
+     */
+    public void set(int cell, int value) {
+        if (value < 0 || value > N) {
+            throw new IllegalArgumentException("Invalid digit " + value);
+        }
+        int word = cell >>> 4;
+        int shift = (cell & 15) << 2;
+        words[word] = (words[word] & ~(0xFL << shift)) | ((long) value << shift);
+    }
+
+    public void set(int row, int col, int value) {
+        set(index(row, col), value);
+    }
+
+    /**
+     * Überschreibt alle Zellen mit einer flachen Liste von 81 Zahlen, z.B. der Lösung eines
+     * Solvers.
+     *
+     * @param cells 81 Zahlen (index = row * 9 + col)
+     */
+    public void setCells(int[] cells) {
+        for (int i = 0; i < CELLS; i++) {
+            set(i, cells[i]);
+        }
+    }
+
+    /**
+     * Überschreibt dieses Feld mit dem Inhalt eines anderen Feldes, ohne ein neues Objekt zu
+     * erzeugen.
+     *
+     * @param other Feld, das kopiert wird
+     */
+    public void copyFrom(PackedBoard other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+    }
+
+    /**
+     * @return Unabhängige Kopie dieses Feldes
+     */
+    public PackedBoard copy() {
+        PackedBoard board = new PackedBoard();
+        board.copyFrom(this);
+        return board;
+    }
+
+    /**
+     * Wandelt Reihe und Spalte in einen Zellenindex um. Ungültige Werte würden sonst auf eine andere
+     * Zelle oder in die ungenutzten Bits des letzten longs zeigen.
+     */
+    private static int index(int row, int col) {
+        if (row < 0 || row >= N || col < 0 || col >= N) {
+            throw new ArrayIndexOutOfBoundsException("Cell (" + row + ", " + col + ")");
+        }
+        return row * N + col;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PackedBoard)) {
+            return false;
+        }
+        return Arrays.equals(words, ((PackedBoard) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
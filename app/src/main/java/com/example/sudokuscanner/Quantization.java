@@ -0,0 +1,61 @@
+/*
+
+ * Quantization
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Rechnet zwischen float Werten und den Werten eines quantisierten int8 oder uint8 Tensors um,
+ * real = (q - zeroPoint) * scale. Die Klasse hängt nicht von TensorflowLite ab, damit die
+ * Umrechnung des quantisierten Models auch ohne das Model selbst getestet werden kann.
+ */
+final class Quantization {
+
+    // Normalisierter Wert 0-1 für jeden Pixelwert 0-255
+    static final float[] NORMALIZED = new float[256];
+
+    static {
+        for (int i = 0; i < NORMALIZED.length; i++) {
+            NORMALIZED[i] = i / 255.0f;
+        }
+    }
+
+    private Quantization() {
+    }
+
+    /**
+     * Berechnet für jeden Pixelwert den quantisierten Wert im Eingabetensor:
+     * q = round(pixel / 255 / scale) + zeroPoint, begrenzt auf den Wertebereich des Datentyps.
+     *
+     * @param unsigned  true für uint8, false für int8
+     * @param quantized Ergebnis mit 256 Einträgen, Index = Pixelwert
+     * @return true, wenn jeder quantisierte Wert gleich dem Pixelwert ist
+     */
+    static boolean quantizePixels(boolean unsigned, float scale, int zeroPoint, byte[] quantized) {
+        int min = unsigned ? 0 : -128;
+        int max = unsigned ? 255 : 127;
+        boolean identity = unsigned;
+        for (int i = 0; i < quantized.length; i++) {
+            int q = Math.round(NORMALIZED[i] / scale) + zeroPoint;
+            q = Math.max(min, Math.min(max, q));
+            quantized[i] = (byte) q;
+            identity &= q == i;
+        }
+        return identity;
+    }
+
+    /**
+     * @param q        Quantisierter Wert, wie er im Puffer steht
+     * @param unsigned true für uint8, false für int8
+     * @return Float Wert (q - zeroPoint) * scale
+     */
+    static float dequantize(byte q, boolean unsigned, float scale, int zeroPoint) {
+        int value = unsigned ? q & 0xFF : q;
+        return (value - zeroPoint) * scale;
+    }
+}
@@ -0,0 +1,412 @@
+/*
+
+ * ScanPipeline
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.opencv.android.Utils;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Führt einen kompletten Scan in einem Hintergrund-Thread aus, damit der UI-Thread während der
+ * Bildverarbeitung nicht blockiert. Der Scan besteht aus den Stufen
+ * decode → detect → warp → extract → classify → validate. In der ersten Stufe wird das Bild in
+ * Arbeitsauflösung dekodiert und um die ausstehenden Vierteldrehungen gedreht, der UI-Thread lädt
+ * nur die kleine Vorschau über loadPreview(). Vor jeder Stufe wird geprüft, ob der Scan
+ * abgebrochen wurde, und der ProgressListener im UI-Thread über die neue Stufe informiert.
+ * Das Ergebnis wird erst am Ende über den zurückgegebenen Task geliefert.
+ */
+public class ScanPipeline {
+
+    private static final String TAG = "ScanPipeline";
+
+    public static final int STAGE_DECODE = 0;
+    public static final int STAGE_DETECT = 1;
+    public static final int STAGE_WARP = 2;
+    public static final int STAGE_EXTRACT = 3;
+    public static final int STAGE_CLASSIFY = 4;
+    public static final int STAGE_VALIDATE = 5;
+    public static final int STAGE_COUNT = 6;
+
+    private static final int N = 9;
+    private static final int CELLS = N * N;
+
+    /**
+     * Wird im UI-Thread aufgerufen, sobald eine neue Stufe beginnt.
+     */
+    public interface ProgressListener {
+        void onStage(int stage);
+    }
+
+    private final ExecutorService executorService;
+    private final Handler mainHandler;
+    private final SudokuAnalyser analyser;
+    private final ClassifierHolder classifierHolder;
+    private CancellationTokenSource cancellationTokenSource;
+
+    // Ergebnisse der Klassifikation (index = row * 9 + col), werden für jeden Scan wiederverwendet
+    private final Mat[] cells;
+    private final int[] digits;
+    private final float[] confidences;
+
+    /**
+     * @param classifierHolder Hält den Classifier der App, vor der Klassifikation wird gewartet,
+     *                         bis das Model geladen ist
+     */
+    public ScanPipeline(ClassifierHolder classifierHolder) {
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.analyser = new SudokuAnalyser();
+        this.classifierHolder = classifierHolder;
+        this.cancellationTokenSource = null;
+
+        this.cells = new Mat[CELLS];
+        this.digits = new int[CELLS];
+        this.confidences = new float[CELLS];
+    }
+
+    /**
+     * Lädt die Vorschau eines Bildes und liest die EXIF Orientierung im Hintergrund.
+     *
+     * @param resolver ContentResolver der Aktivität
+     * @param uri      Uri des ausgewählten Bildes
+     * @return Task mit der ungedrehten Vorschau, schlägt fehl, wenn das Bild nicht dekodiert
+     * werden konnte
+     */
+    public Task<Preview> loadPreview(ContentResolver resolver, Uri uri) {
+        TaskCompletionSource<Preview> task = new TaskCompletionSource<>();
+        this.executorService.execute(() -> {
+            try {
+                Bitmap bitmap = BitmapLoader.decodeSampled(resolver, uri, BitmapLoader.PREVIEW_SIZE);
+                if (bitmap == null) {
+                    throw new FileNotFoundException("Could not decode " + uri);
+                }
+                int quarterTurns = BitmapLoader.readRotation(resolver, uri) / 90;
+                task.trySetResult(new Preview(bitmap, quarterTurns));
+            } catch (Exception e) {
+                task.trySetException(e);
+            }
+        });
+        return task.getTask();
+    }
+
+    /**
+     * Startet einen Scan im Hintergrund. Ein noch laufender Scan wird vorher abgebrochen.
+     *
+     * @param resolver     ContentResolver der Aktivität
+     * @param uri          Uri des ausgewählten Bildes, wird in der ersten Stufe dekodiert
+     * @param quarterTurns Anzahl der Vierteldrehungen im Uhrzeigersinn, 0-3
+     * @param debug        Speichert die Zwischenbilder, wenn der Debug Modus aktiv ist
+     * @param listener     Wird im UI-Thread über jede neue Stufe informiert, darf null sein
+     * @return Task mit dem Ergebnis des Scans
+     */
+    public Task<ScanResult> scan(ContentResolver resolver, Uri uri, int quarterTurns,
+                                 boolean debug, ProgressListener listener) {
+        cancel();
+
+        CancellationTokenSource cts = new CancellationTokenSource();
+        this.cancellationTokenSource = cts;
+        CancellationToken token = cts.getToken();
+        TaskCompletionSource<ScanResult> task = new TaskCompletionSource<>(token);
+
+        this.executorService.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                ScanResult result = runScan(resolver, uri, quarterTurns, debug, listener,
+                        token);
+                if (result != null) {
+                    Log.d(TAG, "Scan finished in " + (System.nanoTime() - start) / 1000000 + "ms");
+                    task.trySetResult(result);
+                } else {
+                    Log.d(TAG, "Scan cancelled");
+                }
+            } catch (Exception e) {
+                task.trySetException(e);
+            }
+        });
+        return task.getTask();
+    }
+
+    /**
+     * Führt alle Stufen nacheinander aus und gibt danach alle Mats des Scans frei.
+     *
+     * @return Ergebnis des Scans oder null, wenn der Scan abgebrochen wurde
+     */
+    private ScanResult runScan(ContentResolver resolver, Uri uri, int quarterTurns, boolean debug,
+                               ProgressListener listener, CancellationToken token) throws Exception {
+        analyser.setDebugMode(debug);
+        try {
+            return runStages(resolver, uri, quarterTurns, listener, token);
+        } finally {
+            // Gibt alle Mats des Scans frei, auch die Zellen und Zwischenbilder eines abgebrochenen
+            // oder fehlgeschlagenen Scans
+            analyser.endScan();
+        }
+    }
+
+    private ScanResult runStages(ContentResolver resolver, Uri uri, int quarterTurns,
+                                 ProgressListener listener, CancellationToken token)
+            throws Exception {
+        if (!enterStage(STAGE_DECODE, listener, token)) {
+            return null;
+        }
+        Bitmap bitmap = BitmapLoader.decodeSampled(resolver, uri, BitmapLoader.MAX_IMAGE_SIZE);
+        if (bitmap == null) {
+            throw new FileNotFoundException("Could not decode " + uri);
+        }
+        Mat image = analyser.track(new Mat());
+        Utils.bitmapToMat(bitmap, image);
+        bitmap.recycle();
+        if (quarterTurns % 4 != 0) {
+            Mat rotated = analyser.track(new Mat());
+            Core.rotate(image, rotated, rotateCode(quarterTurns));
+            analyser.release(image);
+            image = rotated;
+        }
+
+        if (!enterStage(STAGE_DETECT, listener, token)) {
+            return null;
+        }
+        // Das Gitter wird auf einem verkleinerten Bild gesucht, die Ecken gelten aber für das
+        // volle Bild
+        List<Point> corners = analyser.detectGrid(image);
+        if (corners.isEmpty()) {
+            return ScanResult.notFound();
+        }
+
+        if (!enterStage(STAGE_WARP, listener, token)) {
+            return null;
+        }
+        Mat warpedImage = analyser.fourPointTransform(image, corners);
+        // Das Bild in Arbeitsauflösung wird sofort freigegeben, nicht erst am Ende des Scans
+        analyser.release(image);
+
+        if (!enterStage(STAGE_EXTRACT, listener, token)) {
+            return null;
+        }
+        Mat[][] cellsMat = analyser.extractCells(warpedImage);
+        analyser.release(warpedImage);
+
+        if (!enterStage(STAGE_CLASSIFY, listener, token)) {
+            return null;
+        }
+        // Wartet, bis das Model geladen ist. Ist das Laden fehlgeschlagen, versucht preload() es
+        // erneut, schlägt es wieder fehl, endet der Scan mit dem Fehler.
+        DigitClassifier classifier = Tasks.await(classifierHolder.preload());
+        // cellsMat ist nach [y][x] sortiert, der Classifier erwartet index = row * 9 + col
+        boolean found = false;
+        for (int y = 0; y < N; y++) {
+            for (int x = 0; x < N; x++) {
+                cells[y * N + x] = cellsMat[y][x];
+                found |= cellsMat[y][x] != null;
+            }
+        }
+        try {
+            if (!found) {
+                return ScanResult.notFound();
+            }
+            classifier.classifyBatch(cells, digits, confidences);
+            Log.d(TAG, analyser.getLiveMats() + " Mats (" + analyser.getLiveBytes() / 1024
+                    + " KB) alive after classification");
+        } finally {
+            // Die Zellen gehören zum Zellpuffer des SudokuAnalyser und werden dort wiederverwendet
+            Arrays.fill(cells, null);
+        }
+
+        if (!enterStage(STAGE_VALIDATE, listener, token)) {
+            return null;
+        }
+        return validate();
+    }
+
+    /**
+     * @param quarterTurns Anzahl der Vierteldrehungen im Uhrzeigersinn
+     * @return Passender Code für Core.rotate()
+     */
+    private static int rotateCode(int quarterTurns) {
+        switch (((quarterTurns % 4) + 4) % 4) {
+            case 1:
+                return Core.ROTATE_90_CLOCKWISE;
+            case 2:
+                return Core.ROTATE_180;
+            default:
+                return Core.ROTATE_90_COUNTERCLOCKWISE;
+        }
+    }
+
+    /**
+     * Prüft, ob der Scan abgebrochen wurde, und meldet sonst die neue Stufe an den UI-Thread.
+     *
+     * @return false, wenn der Scan abgebrochen wurde
+     */
+    private boolean enterStage(int stage, ProgressListener listener, CancellationToken token) {
+        if (token.isCancellationRequested()) {
+            return false;
+        }
+        if (listener != null) {
+            mainHandler.post(() -> {
+                if (!token.isCancellationRequested()) {
+                    listener.onStage(stage);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Übernimmt die erkannten Zahlen in ein 9x9 Array und prüft, ob eine Zahl in einer Reihe,
+     * Spalte oder einem Block mehrfach erkannt wurde.
+     */
+    private ScanResult validate() {
+        int[][] grid = new int[N][N];
+        int givens = 0;
+        int[] rowMasks = new int[N];
+        int[] colMasks = new int[N];
+        int[] boxMasks = new int[N];
+        boolean conflicts = false;
+
+        for (int i = 0; i < CELLS; i++) {
+            int digit = digits[i];
+            if (digit == 0) {
+                continue;
+            }
+            int row = i / N;
+            int col = i % N;
+            int box = (row / 3) * 3 + col / 3;
+            int bit = 1 << digit;
+            conflicts |= ((rowMasks[row] | colMasks[col] | boxMasks[box]) & bit) != 0;
+            rowMasks[row] |= bit;
+            colMasks[col] |= bit;
+            boxMasks[box] |= bit;
+            grid[row][col] = digit;
+            givens++;
+        }
+        return new ScanResult(true, grid, givens, conflicts);
+    }
+
+    /**
+     * Bricht den laufenden Scan ab. Die aktuelle Stufe wird noch beendet, danach startet keine
+     * weitere Stufe mehr und es wird kein Ergebnis geliefert.
+     */
+    public void cancel() {
+        if (cancellationTokenSource != null) {
+            cancellationTokenSource.cancel();
+            cancellationTokenSource = null;
+        }
+    }
+
+    /**
+     * Bricht den laufenden Scan ab und beendet den Hintergrund-Thread.
+     */
+    public void close() {
+        cancel();
+        // Zellpuffer und Zwischen-Mats erst freigeben, wenn ein laufender Scan beendet ist
+        executorService.execute(analyser::close);
+        executorService.shutdown();
+    }
+
+    /**
+     * Vorschau eines Bildes mit der Anzahl der Vierteldrehungen aus der EXIF Orientierung.
+     */
+    public static class Preview {
+
+        private final Bitmap bitmap;
+        private final int quarterTurns;
+
+        Preview(Bitmap bitmap, int quarterTurns) {
+            this.bitmap = bitmap;
+            this.quarterTurns = quarterTurns;
+        }
+
+        /**
+         * @return Ungedrehte Vorschau, die längere Seite hat höchstens PREVIEW_SIZE Pixel
+         */
+        public Bitmap getBitmap() {
+            return bitmap;
+        }
+
+        /**
+         * @return Vierteldrehungen im Uhrzeigersinn, damit das Bild gerade ausgerichtet ist
+         */
+        public int getQuarterTurns() {
+            return quarterTurns;
+        }
+    }
+
+    /**
+     * Ergebnis eines Scans.
+     */
+    public static class ScanResult {
+
+        private final boolean sudokuFound;
+        private final int[][] cells;
+        private final int givenCount;
+        private final boolean conflicts;
+
+        ScanResult(boolean sudokuFound, int[][] cells, int givenCount, boolean conflicts) {
+            this.sudokuFound = sudokuFound;
+            this.cells = cells;
+            this.givenCount = givenCount;
+            this.conflicts = conflicts;
+        }
+
+        static ScanResult notFound() {
+            return new ScanResult(false, new int[N][N], 0, false);
+        }
+
+        /**
+         * @return true, wenn ein Sudoku gefunden und mindestens eine Zahl erkannt wurde
+         */
+        public boolean isValid() {
+            return sudokuFound && givenCount > 0;
+        }
+
+        public boolean isSudokuFound() {
+            return sudokuFound;
+        }
+
+        /**
+         * @return Erkannte Zahlen als 9x9 Array, leere Zellen haben den Wert 0
+         */
+        public int[][] getCells() {
+            return cells;
+        }
+
+        public int getGivenCount() {
+            return givenCount;
+        }
+
+        /**
+         * @return true, wenn eine Zahl in einer Reihe, Spalte oder einem Block doppelt erkannt wurde
+         */
+        public boolean hasConflicts() {
+            return conflicts;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+
+ * SolveExecutor
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diese Klasse löst ein Sudoku in einem Hintergrund-Thread, damit der UI-Thread bei schweren oder
+ * falsch eingelesenen Sudokus nicht blockiert. Die Suche läuft mit dem IterativeSolver in
+ * Zeitscheiben von NODES_PER_SLICE Knoten. Zwischen den Zeitscheiben wird geprüft, ob die Suche
+ * abgebrochen wurde oder das Zeitbudget überschritten ist.
+ */
+public class SolveExecutor {
+
+    private static final String TAG = "SolveExecutor";
+
+    private static final long NODES_PER_SLICE = 10000;
+
+    private final ExecutorService executorService;
+    private final IterativeSolver solver;
+    private long timeBudgetMillis;
+    private CancellationTokenSource cancellationTokenSource;
+
+    /**
+     * @param timeBudgetMillis Maximale Zeit in Millisekunden, die eine Suche dauern darf
+     */
+    public SolveExecutor(long timeBudgetMillis) {
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.solver = new IterativeSolver();
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.cancellationTokenSource = null;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Sucht im Hintergrund nach höchstens limit Lösungen. Eine noch laufende Suche wird vorher
+     * abgebrochen.
+     *
+     * @param board Sudoku Feld, wird vor dem Start kopiert
+     * @param limit Maximale Anzahl an Lösungen, nach denen gesucht wird
+     * @return Task mit dem Ergebnis der Suche
+     */
+    public Task<SolveResult> solve(PackedBoard board, int limit) {
+        cancel();
+
+        CancellationTokenSource cts = new CancellationTokenSource();
+        this.cancellationTokenSource = cts;
+        CancellationToken token = cts.getToken();
+        TaskCompletionSource<SolveResult> task = new TaskCompletionSource<>(token);
+
+        final PackedBoard copy = board.copy();
+        final long budgetNanos = timeBudgetMillis * 1000000L;
+
+        this.executorService.execute(() -> {
+            long start = System.nanoTime();
+            boolean timedOut = false;
+
+            if (!token.isCancellationRequested() && solver.start(copy)) {
+                while (solver.getSolutionCount() < limit && !token.isCancellationRequested()) {
+                    int state = solver.resume(NODES_PER_SLICE);
+                    if (state == IterativeSolver.EXHAUSTED) {
+                        break;
+                    }
+                    if (state == IterativeSolver.PAUSED && System.nanoTime() - start > budgetNanos) {
+                        timedOut = true;
+                        break;
+                    }
+                }
+            }
+
+            if (token.isCancellationRequested()) {
+                Log.d(TAG, "Solve cancelled after " + solver.getNodesVisited() + " nodes");
+                return;
+            }
+
+            // Bei einer Zeitüberschreitung ist die Anzahl der Lösungen nur eine Untergrenze
+            int count = solver.getSolutionCount();
+            task.trySetResult(new SolveResult(
+                    count,
+                    count > 0 ? solver.getSolution(0).clone() : null,
+                    count > 1 ? solver.getSolution(1).clone() : null,
+                    solver.getNodesVisited(),
+                    System.nanoTime() - start,
+                    timedOut));
+        });
+        return task.getTask();
+    }
+
+    /**
+     * Bricht die laufende Suche ab. Der zugehörige Task wird als abgebrochen markiert.
+     */
+    public void cancel() {
+        if (cancellationTokenSource != null) {
+            cancellationTokenSource.cancel();
+            cancellationTokenSource = null;
+        }
+    }
+
+    /**
+     * Bricht die laufende Suche ab und beendet den Hintergrund-Thread.
+     */
+    public void close() {
+        cancel();
+        executorService.shutdown();
+    }
+
+    /**
+     * Ergebnis einer Suche im Hintergrund.
+     */
+    public static class SolveResult {
+
+        private final int solutionCount;
+        private final int[] firstSolution, secondSolution;
+        private final long nodesVisited, elapsedNanos;
+        private final boolean timedOut;
+
+        SolveResult(int solutionCount, int[] firstSolution, int[] secondSolution,
+                    long nodesVisited, long elapsedNanos, boolean timedOut) {
+            this.solutionCount = solutionCount;
+            this.firstSolution = firstSolution;
+            this.secondSolution = secondSolution;
+            this.nodesVisited = nodesVisited;
+            this.elapsedNanos = elapsedNanos;
+            this.timedOut = timedOut;
+        }
+
+        public int getSolutionCount() {
+            return solutionCount;
+        }
+
+        public int[] getFirstSolution() {
+            return firstSolution;
+        }
+
+        public int[] getSecondSolution() {
+            return secondSolution;
+        }
+
+        public long getNodesVisited() {
+            return nodesVisited;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return Besuchte Knoten pro Sekunde während der Suche
+         */
+        public long getNodesPerSecond() {
+            return elapsedNanos > 0 ? nodesVisited * 1000000000L / elapsedNanos : 0;
+        }
+    }
+}
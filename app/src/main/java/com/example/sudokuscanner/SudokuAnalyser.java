@@ -9,11 +9,9 @@
 
 package com.example.sudokuscanner;
 
-import android.graphics.Bitmap;
 import android.os.Environment;
 import android.util.Log;
 
-import org.opencv.android.Utils;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -30,56 +28,131 @@ import org.opencv.utils.Converters;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Diese Klasse beinhaltet alle Methoden um ein Bild zu Analysieren und anhand der Konturen
  * zuzuschneiden.
+ * Alle Mats, die während eines Scans angelegt werden, werden in einer MatArena gesammelt und mit
+ * endScan() gemeinsam freigegeben. Die Zellen werden dagegen in einen Puffer geschrieben, der über
+ * alle Scans wiederverwendet wird, sie sind daher nur bis zum nächsten Scan gültig. Zusammen mit den
+ * Zwischen-Mats pro Thread und den konstanten Strukturelementen wird pro Zelle fast kein Speicher
+ * mehr angelegt. Mit close() werden Puffer und Zwischen-Mats freigegeben.
  */
 public class SudokuAnalyser {
 
+    private static final int CELLS = 81;
+    // Breite und Höhe einer vorverarbeiteten Zelle, wie sie der Classifier erwartet
+    private static final int CELL_SIZE = 28;
+    private static final Size CELL_DIMENSIONS = new Size(CELL_SIZE, CELL_SIZE);
+    private static final Size CELL_BLUR = new Size(7, 7);
+    private static final Scalar BLACK = new Scalar(0);
+    private static final Scalar WHITE = new Scalar(255, 255, 255);
+    // Maximale Länge der längeren Bildseite, auf der das Gitter gesucht wird
+    private static final int DETECTION_MAX_SIZE = 1000;
+    // Filtergrößen der Vorverarbeitung in voller Auflösung
+    private static final int BLUR_SIZE = 23;
+    private static final int THRESHOLD_BLOCK_SIZE = 101;
+    // Anzahl der größten Konturen, unter denen das Sudoku gesucht wird
+    private static final int CANDIDATES = 5;
+    // Anzahl der Threads, auf die die Zellen verteilt werden
+    private static final int CELL_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    // Gemeinsamer Pool für alle Instanzen, damit pro Scan keine Threads erzeugt werden
+    private static final ExecutorService CELL_POOL = Executors.newFixedThreadPool(CELL_THREADS);
+
     private final String TAG = "SudokuAnalyser";
     private Boolean debugMode = false;
+    // Zellen parallel oder nacheinander vorverarbeiten, beide liefern dasselbe Ergebnis
+    private boolean parallelExtraction = true;
+    // Gitter auf einem verkleinerten Bild suchen und nur den Zuschnitt in voller Auflösung machen
+    private boolean multiResolution = true;
     private final File path = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES);
+    // Alle Mats des aktuellen Scans
+    private final MatArena arena = new MatArena();
+    // Alle Zellen eines Scans, eine Zeile mit CELL_SIZE * CELL_SIZE Pixeln pro Zelle
+    private Mat cellBuffer;
+    // Ausschnitte aus cellBuffer als CELL_SIZE x CELL_SIZE Mats (index = col * 9 + row)
+    private final Mat[] cellSlices = new Mat[CELLS];
+    // Zwischen-Mats pro Block der parallelen Vorverarbeitung, bleiben über alle Scans erhalten
+    private final CellScratch[] scratches = new CellScratch[CELL_THREADS];
+
+    public void setDebugMode(Boolean debugMode) {
+        this.debugMode = debugMode;
+    }
+
+    public void setParallelExtraction(boolean parallelExtraction) {
+        this.parallelExtraction = parallelExtraction;
+    }
+
+    public void setMultiResolution(boolean multiResolution) {
+        this.multiResolution = multiResolution;
+    }
 
     /**
-     * Komplette Pipeline, um das Sudoku in einem Bild zu finden, die einzelnen Zellen zuzuschneiden,
-     * für die Klassifikation vorzubereiten und in einem 2d-Array abzuspeichern.
-     *
-     * @param bitmap Bild Datei die analysiert werden soll.
-     * @param debug  Checks if debug mode is on
-     * @return 2-dimensionales Mat Array, welches alle 81 Zellen beinhaltet.
+     * Nimmt eine Mat in die Arena des aktuellen Scans auf, sie wird mit endScan() freigegeben.
      */
-    public Mat[][] analyseSudokuPipeline(Bitmap bitmap, Boolean debug) throws IOException {
-        debugMode = debug;
-        Mat image = imageToMat(bitmap);
-        Mat preprocessedImage = preprocessImage(image);
-        List<Point> sudokuContour = findSudoku(preprocessedImage);
+    <T extends Mat> T track(T mat) {
+        return arena.track(mat);
+    }
 
-        if (sudokuContour.isEmpty()) {
-            return new Mat[9][9];
-        }
+    /**
+     * Gibt eine Mat des aktuellen Scans sofort frei.
+     */
+    void release(Mat mat) {
+        arena.release(mat);
+    }
 
-        List<Point> corners = findCorners(sudokuContour);
-        Mat warpedImage = fourPointTransform(image, corners);
-        saveMatAsImage("zugeschnitten.png", warpedImage);
+    /**
+     * Gibt alle Mats des aktuellen Scans frei. Die Zellen liegen im Zellpuffer und bleiben bis zum
+     * nächsten Scan erhalten.
+     */
+    public void endScan() {
+        arena.releaseAll();
+    }
 
-        return extractCells(warpedImage);
+    /**
+     * Gibt den Zellpuffer und die Zwischen-Mats frei. Danach darf die Instanz nicht mehr für einen
+     * Scan benutzt werden.
+     */
+    public void close() {
+        endScan();
+        for (int i = 0; i < CELL_THREADS; i++) {
+            if (scratches[i] != null) {
+                scratches[i].release();
+                scratches[i] = null;
+            }
+        }
+        if (cellBuffer != null) {
+            for (int i = 0; i < CELLS; i++) {
+                cellSlices[i].release();
+                cellSlices[i] = null;
+            }
+            cellBuffer.release();
+            cellBuffer = null;
+        }
     }
 
     /**
-     * Wandelt eine Bilddatei in ein Mat-Objekt um, was für das Arbeiten mit OpenCV notwendig ist.
-     *
-     * @param bitmap Zu konvertierende Bilddatei
-     * @return Mat representation des ursprünglichen Bildes
+     * @return Anzahl der Mats des aktuellen Scans, die noch nicht freigegeben wurden
+     */
+    public int getLiveMats() {
+        return arena.getLiveMats();
+    }
+
+    /**
+     * @return Bytes der Pixeldaten aller noch nicht freigegebenen Mats des aktuellen Scans
      */
-    public Mat imageToMat(Bitmap bitmap) {
-        Mat mat = new Mat();
-        // Wandelt die Bitmap in ein Mat Objekt um, welches dieselben Eigenschaften wie das Bitmap Objekt besitzt
-        Utils.bitmapToMat(bitmap, mat);
-        return mat;
+    public long getLiveBytes() {
+        return arena.getLiveBytes();
     }
 
     /**
@@ -89,13 +162,10 @@ public class SudokuAnalyser {
      * @return Mat Objekt, welches das Invertierte Bild enthält.
      */
     private Mat invert(Mat threshold) {
-        Mat inverted = new Mat(threshold.height(), threshold.width(), CvType.CV_8UC1);
+        Mat inverted = track(new Mat(threshold.height(), threshold.width(), CvType.CV_8UC1));
         Core.bitwise_not(threshold, inverted);
 
-        Mat kernel = new Mat(3, 3, CvType.CV_8UC1, new Scalar(0));
-        kernel.row(1).setTo(new Scalar(1));
-        kernel.col(1).setTo(new Scalar(1));
-        Imgproc.dilate(inverted, inverted, kernel);
+        Imgproc.dilate(inverted, inverted, Kernels.CROSS);
 
         return inverted;
     }
@@ -103,13 +173,14 @@ public class SudokuAnalyser {
     /**
      * Wendet den Threshold-Algorithmus auf ein schwarz-weiß Bild an.
      *
-     * @param blur Schwarz-weiß Mat Objekt
+     * @param blur      Schwarz-weiß Mat Objekt
+     * @param blockSize Größe der Nachbarschaft, ungerade
      * @return Mat Objekt
      */
-    private Mat threshold(Mat blur) {
-        Mat threshold = new Mat(blur.height(), blur.width(), CvType.CV_8UC1);
+    private Mat threshold(Mat blur, int blockSize) {
+        Mat threshold = track(new Mat(blur.height(), blur.width(), CvType.CV_8UC1));
         Imgproc.adaptiveThreshold(blur, threshold, 255, Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C,
-                Imgproc.THRESH_BINARY, 101, 10);
+                Imgproc.THRESH_BINARY, blockSize, 10);
         return threshold;
     }
 
@@ -120,7 +191,7 @@ public class SudokuAnalyser {
      * @return Mat Objekt
      */
     private Mat gaussianBlur(Mat gray, int size) {
-        Mat blur = new Mat(gray.height(), gray.width(), CvType.CV_8UC1);
+        Mat blur = track(new Mat(gray.height(), gray.width(), CvType.CV_8UC1));
         Imgproc.GaussianBlur(gray, blur, new Size(size, size), 0);
         return blur;
     }
@@ -132,7 +203,7 @@ public class SudokuAnalyser {
      * @return Schwarz-weiß Bild als Mat Objekt
      */
     private Mat toGrayscale(Mat image) {
-        Mat gray = new Mat(image.height(), image.width(), CvType.CV_8UC1);
+        Mat gray = track(new Mat(image.height(), image.width(), CvType.CV_8UC1));
         Imgproc.cvtColor(image, gray, Imgproc.COLOR_RGB2GRAY);
         return gray;
     }
@@ -141,66 +212,180 @@ public class SudokuAnalyser {
      * Bereitet das übergebene Bild so vor, dass das Sudoku gefunden und weiterverarbeitet werden
      * kann.
      *
-     * @param image Ein Bild als Bitmap Obejekt
+     * @param image Ein Bild als Mat Obejekt
      * @return Mat Objekt, welches bereit zur weiteren Analyse ist.
      */
     public Mat preprocessImage(Mat image) throws IOException {
         Mat gray = toGrayscale(image);
+        Mat inverted = preprocessGray(gray, 1);
+        release(gray);
+        return inverted;
+    }
+
+    /**
+     * Vorverarbeitung eines schwarz-weiß Bildes. Die Filtergrößen sind für die volle Auflösung
+     * gewählt und werden für verkleinerte Bilder mit scale skaliert, damit Gitterlinien auf jeder
+     * Stufe gleich stark geglättet werden.
+     *
+     * @param gray  Schwarz-weiß Bild
+     * @param scale Verhältnis der Bildgröße zur vollen Auflösung, 1 für volle Auflösung
+     * @return Mat Objekt, welches bereit zur weiteren Analyse ist.
+     */
+    private Mat preprocessGray(Mat gray, double scale) {
         saveMatAsImage("gray.png", gray);
-        Mat blur = gaussianBlur(gray, 23);
+        Mat blur = gaussianBlur(gray, oddSize(BLUR_SIZE * scale));
         saveMatAsImage("gauss.png", blur);
-        Mat threshold = threshold(blur);
+        Mat threshold = threshold(blur, oddSize(THRESHOLD_BLOCK_SIZE * scale));
+        release(blur);
         saveMatAsImage("thresh.png", threshold);
         Mat inverted = invert(threshold);
+        release(threshold);
         saveMatAsImage("invert.png", inverted);
         return inverted;
     }
 
     /**
-     * Findet die Kontur eines Sudokus in einem gegebenen Bild.
+     * @return Nächste ungerade Filtergröße, mindestens 3
+     */
+    private static int oddSize(double size) {
+        int odd = (int) Math.round(size) | 1;
+        return Math.max(3, odd);
+    }
+
+    /**
+     * Findet die vier Ecken des Sudokus. Im Multi-Resolution Modus wird das schwarz-weiß Bild mit
+     * INTER_AREA in einem Schritt so verkleinert, dass die längere Seite höchstens
+     * DETECTION_MAX_SIZE Pixel hat. Vorverarbeitung und Konturensuche laufen dann auf dem kleinen
+     * Bild, nur die Ecken werden mit dem genauen Verhältnis der Bildgrößen zurück auf die volle
+     * Auflösung skaliert. Bei einem Bild mit 2048 Pixeln bearbeiten Blur und Threshold damit nur
+     * noch etwa ein Viertel der Pixel.
+     *
+     * @param image Bild in voller Auflösung
+     * @return Sortierte Ecken {oben links, oben rechts, unten links, unten rechts} in Koordinaten
+     * des vollen Bildes, leer wenn kein Sudoku gefunden wurde
+     */
+    public List<Point> detectGrid(Mat image) throws IOException {
+        if (!multiResolution) {
+            Mat preprocessedImage = preprocessImage(image);
+            List<Point> sudokuContour = findSudoku(preprocessedImage);
+            release(preprocessedImage);
+            return sudokuContour.isEmpty() ? sudokuContour : findCorners(sudokuContour);
+        }
+
+        long start = System.nanoTime();
+        Mat small = toGrayscale(image);
+        int longSide = Math.max(small.width(), small.height());
+        if (longSide > DETECTION_MAX_SIZE) {
+            // INTER_AREA mittelt über alle Quellpixel und verkleinert ohne Aliasing auf jede
+            // beliebige Größe, pyrDown könnte nur halbieren
+            double ratio = (double) DETECTION_MAX_SIZE / longSide;
+            Size size = new Size(Math.max(1, Math.round(small.width() * ratio)),
+                    Math.max(1, Math.round(small.height() * ratio)));
+            Mat down = track(new Mat());
+            Imgproc.resize(small, down, size, 0, 0, Imgproc.INTER_AREA);
+            release(small);
+            small = down;
+        }
+        double scaleX = (double) image.width() / small.width();
+        double scaleY = (double) image.height() / small.height();
+        String detectionSize = small.width() + "x" + small.height();
+
+        Mat preprocessedImage = preprocessGray(small, 1 / Math.max(scaleX, scaleY));
+        release(small);
+        List<Point> sudokuContour = findSudoku(preprocessedImage);
+        release(preprocessedImage);
+        Log.d(TAG, "Detected grid in " + (System.nanoTime() - start) / 1000000 + "ms at "
+                + detectionSize);
+
+        if (sudokuContour.isEmpty()) {
+            return sudokuContour;
+        }
+        for (Point point : sudokuContour) {
+            point.x *= scaleX;
+            point.y *= scaleY;
+        }
+        return findCorners(sudokuContour);
+    }
+
+    /**
+     * Findet die Kontur eines Sudokus in einem gegebenen Bild. Es werden nur die äußeren Konturen
+     * gesucht, die Zellen und Zahlen innerhalb des Gitters sind für die Suche unwichtig. Die Fläche
+     * jeder Kontur wird einmal berechnet und nur die CANDIDATES größten Konturen werden geprüft.
      *
      * @param preprocessedImage Bild, welches für die Konturenfinung vorbereitet wurde
      * @return Punkte der größten (vom Flächeninhalt) quadratische Kontur als List
      */
     public List<Point> findSudoku(Mat preprocessedImage) {
         List<MatOfPoint> contours = new ArrayList<>();
-        Mat hierarchey = new Mat();
-        Imgproc.findContours(preprocessedImage, contours, hierarchey, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+        Mat hierarchey = track(new Mat());
+        Imgproc.findContours(preprocessedImage, contours, hierarchey, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
 
-        // Konturen nach Flächengröße sortieren
-        contours.sort(new Comparator<MatOfPoint>() {
-            @Override
-            public int compare(MatOfPoint c1, MatOfPoint c2) {
-                return (int) (Imgproc.contourArea(c2) - Imgproc.contourArea(c1));
-            }
-        });
+        try {
+            drawContours(preprocessedImage, contours, 3, "allConturs.png");
+
+            int[] candidates = largestContours(contours);
+            MatOfPoint2f curve = track(new MatOfPoint2f());
+            MatOfPoint2f approx = track(new MatOfPoint2f());
 
-        drawContours(preprocessedImage, contours, 3, "allConturs.png");
+            // Über die größten Konturen iterieren. Die Kontur mit der größten Fläche und 4
+            // zusammenhängenden Seiten ist (vermutlich) ein Sudoku
+            for (int index : candidates) {
+                if (index < 0) {
+                    break;
+                }
+                contours.get(index).convertTo(curve, CvType.CV_32F);
+                double peri = Imgproc.arcLength(curve, true);
+                Imgproc.approxPolyDP(curve, approx, 0.015 * peri, true);
 
-        MatOfPoint2f sudokuContour = new MatOfPoint2f();
+                if (approx.height() == 4) {
+                    MatOfPoint convertedContour = track(new MatOfPoint());
+                    approx.convertTo(convertedContour, CvType.CV_32S);
+                    List<MatOfPoint> contourList = new ArrayList<>();
+                    contourList.add(convertedContour);
 
-        // Über alle Konturen iterieren. Die Kontur mit der größten Fläche und 4 zusammenhängenden
-        // Seiten ist (vermutlich) ein Sudoku
-        for (int i = 0; i < contours.size(); i++) {
-            MatOfPoint boxPoints = contours.get(i);
-            MatOfPoint2f approx = new MatOfPoint2f(boxPoints.toArray());
-            double peri = Imgproc.arcLength(approx, true);
-            Imgproc.approxPolyDP(approx, approx, 0.015 * peri, true);
-
-            if (approx.height() == 4) {
-                sudokuContour = approx;
-                break;
+                    drawContours(preprocessedImage, contourList, 12, "sudokuContour.png");
+
+                    return convertedContour.toList();
+                }
+            }
+            return new ArrayList<>();
+        } finally {
+            // Die Konturen werden nicht in der Arena gesammelt, da es tausende sein können
+            for (MatOfPoint contour : contours) {
+                contour.release();
             }
         }
+    }
 
-        MatOfPoint convertedContour = new MatOfPoint();
-        sudokuContour.convertTo(convertedContour, CvType.CV_32S);
-        List<MatOfPoint> contourList = new ArrayList<>();
-        contourList.add(convertedContour);
-
-        drawContours(preprocessedImage, contourList, 12, "sudokuContour.png");
+    /**
+     * Berechnet die Fläche jeder Kontur genau einmal und merkt sich die Indizes der CANDIDATES
+     * größten Konturen. Statt alle Konturen zu sortieren wird jede Fläche nur mit den bisher
+     * größten verglichen.
+     *
+     * @return Indizes der größten Konturen nach Fläche absteigend, nicht belegte Plätze sind -1
+     */
+    private static int[] largestContours(List<MatOfPoint> contours) {
+        int[] indices = new int[CANDIDATES];
+        double[] areas = new double[CANDIDATES];
+        Arrays.fill(indices, -1);
 
-        return contourList.get(0).toList();
+        int found = 0;
+        for (int i = 0; i < contours.size(); i++) {
+            double area = Imgproc.contourArea(contours.get(i));
+            if (found == CANDIDATES && area <= areas[CANDIDATES - 1]) {
+                continue;
+            }
+            // Einfügen an der richtigen Stelle, kleinere Flächen rücken nach hinten
+            int position = found < CANDIDATES ? found++ : CANDIDATES - 1;
+            while (position > 0 && areas[position - 1] < area) {
+                areas[position] = areas[position - 1];
+                indices[position] = indices[position - 1];
+                position--;
+            }
+            areas[position] = area;
+            indices[position] = i;
+        }
+        return indices;
     }
 
     /**
@@ -286,20 +471,26 @@ public class SudokuAnalyser {
         target.add(new Point(0, maxHeight - 1));
         target.add(new Point(maxWidth - 1, maxHeight - 1));
 
-        Mat warp = Imgproc.getPerspectiveTransform(Converters.vector_Point2f_to_Mat(corners),
-                Converters.vector_Point2f_to_Mat(target));
-        Mat destImage = new Mat();
+        Mat warp = track(Imgproc.getPerspectiveTransform(
+                track(Converters.vector_Point2f_to_Mat(corners)),
+                track(Converters.vector_Point2f_to_Mat(target))));
+        Mat destImage = track(new Mat());
 
         Imgproc.warpPerspective(image, destImage, warp, new Size(maxWidth, maxHeight));
         System.out.println(destImage);
+        saveMatAsImage("zugeschnitten.png", destImage);
         return destImage;
     }
 
     /**
-     * Schneidet alle Zellen aus einem Sudoku-Bild zu.
+     * Schneidet alle Zellen aus einem Sudoku-Bild zu. Im parallelen Modus werden die 81 Zellen in
+     * zusammenhängende Blöcke auf CELL_THREADS Threads aufgeteilt. Jeder Block hat eigene
+     * Zwischen-Mats und schreibt nur in seine eigenen Zeilen des Zellpuffers, das Ergebnis ist daher
+     * dasselbe wie im sequentiellen Modus.
      *
      * @param warpedImage Zugeschnittenes Bild von einem Sudoku, indem NUR das Sudoku enthalten ist.
-     * @return 2d Array mit allen zugeschnittenen Zellen.
+     * @return 2d Array mit allen zugeschnittenen Zellen. Die Zellen sind Ausschnitte aus dem
+     * Zellpuffer und werden beim nächsten Scan überschrieben.
      */
     public Mat[][] extractCells(Mat warpedImage) {
         Mat[][] cells = new Mat[9][9];
@@ -307,31 +498,89 @@ public class SudokuAnalyser {
         int cellWidth = warpedImage.width() / 9;
         int cellHeight = warpedImage.height() / 9;
 
-        int x, y;
-
-        for (int col = 0; col < 9; col++) {
-            for (int row = 0; row < 9; row++) {
-                x = row * cellWidth;
-                y = col * cellHeight;
+        // Wenn kein Sudoku gefunden wurde, ist die Zelle leer.
+        // Gib ein leeres Mat Array zurück, um zu Signalisieren, dass kein Sudoku
+        // gefunden wurde.
+        if (cellWidth == 0 || cellHeight == 0) {
+            return new Mat[9][9];
+        }
 
-                Rect cellArea = new Rect(x, y, cellWidth, cellHeight);
-                Mat cell = new Mat(warpedImage, cellArea);
+        long start = System.nanoTime();
+        if (cellBuffer == null) {
+            allocateCellBuffer();
+        }
+        boolean parallel = parallelExtraction && CELL_THREADS > 1;
+        if (parallel) {
+            int blockSize = (CELLS + CELL_THREADS - 1) / CELL_THREADS;
+            List<Callable<Void>> blocks = new ArrayList<>(CELL_THREADS);
+            for (int first = 0, block = 0; first < CELLS; first += blockSize, block++) {
+                final int from = first;
+                final int to = Math.min(CELLS, first + blockSize);
+                final int worker = block;
+                blocks.add(() -> {
+                    extractCellRange(warpedImage, cells, cellWidth, cellHeight, from, to, worker);
+                    return null;
+                });
+            }
 
-                // Wenn kein Sudoku gefunden wurde, ist die Zelle leer.
-                // Gib ein leeres Mat Array zurück, um zu Signalisieren, dass kein Sudoku
-                // gefunden wurde.
-                if (cell.height() == 0 || cell.width() == 0) {
-                    return new Mat[9][9];
+            try {
+                for (Future<Void> block : CELL_POOL.invokeAll(blocks)) {
+                    block.get();
                 }
-
-                cell = preprocessCell(cell);
-                cells[col][row] = cell;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Mat[9][9];
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Cell extraction failed", e.getCause());
             }
+        } else {
+            extractCellRange(warpedImage, cells, cellWidth, cellHeight, 0, CELLS, 0);
         }
-        Log.d(TAG, "Double for loop: OK");
+
+        Log.d(TAG, "Extracted cells in " + (System.nanoTime() - start) / 1000000 + "ms ("
+                + (parallel ? CELL_THREADS + " threads" : "sequential") + ")");
         return cells;
     }
 
+    /**
+     * Legt den Zellpuffer und die Ausschnitte für jede Zelle einmalig an.
+     */
+    private void allocateCellBuffer() {
+        cellBuffer = new Mat(CELLS, CELL_SIZE * CELL_SIZE, CvType.CV_8UC1);
+        for (int i = 0; i < CELLS; i++) {
+            Mat row = cellBuffer.row(i);
+            cellSlices[i] = row.reshape(1, CELL_SIZE);
+            row.release();
+        }
+    }
+
+    /**
+     * Schneidet die Zellen mit den Indizes from bis to (exklusiv, index = col * 9 + row) zu und
+     * bereitet sie vor. Die Zwischen-Mats des Blocks werden für alle Zellen und Scans
+     * wiederverwendet.
+     *
+     * @param worker Index des Blocks, bestimmt die Zwischen-Mats
+     */
+    private void extractCellRange(Mat warpedImage, Mat[][] cells, int cellWidth, int cellHeight,
+                                  int from, int to, int worker) {
+        if (scratches[worker] == null) {
+            scratches[worker] = new CellScratch();
+        }
+        CellScratch scratch = scratches[worker];
+        scratch.ensureSize(cellWidth, cellHeight);
+
+        for (int i = from; i < to; i++) {
+            int col = i / 9;
+            int row = i % 9;
+
+            Rect cellArea = new Rect(row * cellWidth, col * cellHeight, cellWidth, cellHeight);
+            Mat cell = new Mat(warpedImage, cellArea);
+            preprocessCell(cell, scratch, cellSlices[i]);
+            cell.release();
+            cells[col][row] = cellSlices[i];
+        }
+    }
+
     /**
      * Bereitet jede einzelne Zelle für die Klassifikation vor
      * - wandelt Zelle zu schwarz-weiß um
@@ -341,31 +590,33 @@ public class SudokuAnalyser {
      * - schneidet die Zelle so zu, dass nur die Zahl enthalten ist und
      * nicht die Ränder einzelner Zellen und andere störende Merkmale
      *
-     * @param cell Mat einer einzelnen Sudoku Zelle.
-     * @return Mat von einer Sudoku Zelle, die bereit für die Klassifizierung ist.
+     * @param cell        Mat einer einzelnen Sudoku Zelle.
+     * @param scratch     Zwischen-Mats des aufrufenden Threads
+     * @param cleanedCell Ausschnitt des Zellpuffers, in den die Zelle geschrieben wird, die bereit
+     *                    für die Klassifizierung ist.
      */
-    private Mat preprocessCell(Mat cell) {
+    private void preprocessCell(Mat cell, CellScratch scratch, Mat cleanedCell) {
         // Vorverarbeitungsschritte, um die Zelle zur Konturenfindung der Zahlen vorzubereiten
-        Mat gray = new Mat(cell.height(), cell.width(), CvType.CV_8UC1);
-        Imgproc.cvtColor(cell, gray, Imgproc.COLOR_BGR2GRAY);
-        Mat blur = gaussianBlur(gray, 7);
+        Mat blur = scratch.blur;
+        Imgproc.cvtColor(cell, scratch.gray, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.GaussianBlur(scratch.gray, blur, CELL_BLUR, 0);
         Imgproc.adaptiveThreshold(blur, blur, 255, Imgproc.ADAPTIVE_THRESH_GAUSSIAN_C, Imgproc.THRESH_BINARY, 101, 10);
         Core.bitwise_not(blur, blur);
-
-        Mat kernel = new Mat(5, 5, CvType.CV_8UC1, new Scalar(0));
-        kernel.row(1).setTo(new Scalar(1));
-        kernel.col(1).setTo(new Scalar(1));
-        Imgproc.erode(blur, blur, kernel);
+        Imgproc.erode(blur, blur, Kernels.CELL_LINES);
 
         //Konturen der Zahl finden und den Bereich, wo die Zahl liegt
-        List<MatOfPoint> contours = new ArrayList<>();
-        Mat hierarchy = new Mat();
-        Imgproc.resize(blur, blur, new Size(28, 28));
-        Imgproc.findContours(blur, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-        Mat cleanedCell = new Mat(blur.height(), blur.width(), CvType.CV_8UC1, new Scalar(0));
+        Mat resized = scratch.resized;
+        Imgproc.resize(blur, resized, CELL_DIMENSIONS);
+        Imgproc.findContours(resized, scratch.contours, scratch.hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        cleanedCell.setTo(BLACK);
+
+        // Alle Bereiche mit Zahlen werden in einer Maske gesammelt und danach einmal kopiert
+        Mat mask = scratch.mask;
+        mask.setTo(BLACK);
+        boolean digitFound = false;
 
         // Finde Bereich der Kontur der Zahlen
-        for (MatOfPoint c : contours) {
+        for (MatOfPoint c : scratch.contours) {
             Rect roi = Imgproc.boundingRect(c);
             int x = roi.x;
             int y = roi.y;
@@ -377,17 +628,90 @@ public class SudokuAnalyser {
                 continue;
             }
 
-            // Kopiere nur die Zahl in eine neue Zelle mit schwarzem Hintergrund
-            Mat mask = new Mat(blur.height(), blur.width(), CvType.CV_8UC1, new Scalar(0));
-            Imgproc.rectangle(mask, new Point(x, y), new Point(x + w, y + h), new Scalar(255, 255, 255), -1);
-            blur.copyTo(cleanedCell, mask);
+            Imgproc.rectangle(mask, new Point(x, y), new Point(x + w, y + h), WHITE, -1);
+            digitFound = true;
+        }
+        scratch.clearContours();
+
+        // Kopiere nur die Zahl in die Zelle mit schwarzem Hintergrund
+        if (digitFound) {
+            resized.copyTo(cleanedCell, mask);
+        }
+    }
+
+    /**
+     * Strukturelemente für dilate und erode. Sie werden erst beim ersten Zugriff angelegt, da
+     * OpenCV dann bereits geladen ist, und danach von allen Threads nur gelesen.
+     */
+    private static final class Kernels {
+
+        // Kreuz zum Schließen von Lücken in den Gitterlinien
+        static final Mat CROSS = lines(3);
+        // Linien in der zweiten Zeile und Spalte zum Entfernen der Zellränder
+        static final Mat CELL_LINES = lines(5);
+
+        /**
+         * @return size x size Kernel, in dem die zweite Zeile und Spalte gesetzt sind
+         */
+        private static Mat lines(int size) {
+            Mat kernel = new Mat(size, size, CvType.CV_8UC1, new Scalar(0));
+            Mat row = kernel.row(1);
+            row.setTo(new Scalar(1));
+            row.release();
+            Mat col = kernel.col(1);
+            col.setTo(new Scalar(1));
+            col.release();
+            return kernel;
+        }
+    }
+
+    /**
+     * Zwischen-Mats für die Vorverarbeitung der Zellen. Jeder Thread benutzt eigene Instanzen,
+     * da OpenCV Mats nicht gleichzeitig beschrieben werden dürfen.
+     */
+    private static class CellScratch {
+
+        final Mat gray = new Mat();
+        final Mat blur = new Mat();
+        final Mat resized = new Mat();
+        final Mat hierarchy = new Mat();
+        final Mat mask = new Mat();
+        final List<MatOfPoint> contours = new ArrayList<>();
+
+        /**
+         * Passt die Zwischen-Mats an die Zellgröße des Scans an. Bei gleicher Größe wie im letzten
+         * Scan wird nichts neu angelegt.
+         */
+        void ensureSize(int cellWidth, int cellHeight) {
+            gray.create(cellHeight, cellWidth, CvType.CV_8UC1);
+            blur.create(cellHeight, cellWidth, CvType.CV_8UC1);
+            resized.create(CELL_SIZE, CELL_SIZE, CvType.CV_8UC1);
+            mask.create(CELL_SIZE, CELL_SIZE, CvType.CV_8UC1);
         }
 
-        return cleanedCell;
+        void clearContours() {
+            for (MatOfPoint contour : contours) {
+                contour.release();
+            }
+            contours.clear();
+        }
+
+        void release() {
+            clearContours();
+            gray.release();
+            blur.release();
+            resized.release();
+            hierarchy.release();
+            mask.release();
+        }
     }
 
     private void drawContours(Mat image, List<MatOfPoint> contours, int stroke, String saveString) {
-        Mat contourImg = image.clone();
+        // Ohne Debug Modus wird das Bild nicht gespeichert, die Kopie wäre umsonst
+        if (!debugMode) {
+            return;
+        }
+        Mat contourImg = track(image.clone());
         Imgproc.cvtColor(contourImg, contourImg, Imgproc.COLOR_GRAY2RGB);
 
         for (int i = 0; i < contours.size(); i++) {
@@ -395,6 +719,7 @@ public class SudokuAnalyser {
         }
 
         saveMatAsImage(saveString, contourImg);
+        release(contourImg);
     }
 
     /**
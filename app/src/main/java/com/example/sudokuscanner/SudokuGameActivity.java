@@ -20,8 +20,6 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.Arrays;
-
 /**
  * Diese Klasse managed das Sudoku Spiel.
  * Das zu dieser Klasse gehörende Layout ist "activity_sudoku_game.xml".
@@ -30,12 +28,21 @@ public class SudokuGameActivity extends AppCompatActivity {
 
     private final String TAG = "SudokuGameActivity";
     private final String ERROR_TEXT = "Something went wrong, please try again..";
+    private final String AMBIGUOUS_TEXT = "This Sudoku has more than one solution, please check the marked cells..";
+    private final String SOLVING_TEXT = "Still solving, please wait a moment..";
+    private final String TIMEOUT_TEXT = "Solving took too long, please try again..";
+
+    // Maximale Zeit, die das Lösen des Sudokus im Hintergrund dauern darf
+    private final long SOLVE_TIME_BUDGET_MS = 3000;
 
     private Chronometer timer;
     private BoardView sudokuBoard;
     private GameLogic game;
+    private SolveExecutor solveExecutor;
 
     private int[][] cellArray;
+    // Eingelesene Zahlen, nach denen im Hintergrund gelöst wird
+    private PackedBoard givens;
     private long timeWhenPause;
 
     @Override
@@ -61,14 +68,54 @@ public class SudokuGameActivity extends AppCompatActivity {
         sudokuBoard = findViewById(R.id.sudokuBoard);
         // Liest das aktive Spiel aus, welches in der Klasse BoardView initialisiert wurde.
         game = sudokuBoard.getGame();
-        game.setSudokuBoard(cellArray);
-        game.setSolvable(game.solveSudoku(game.getSolvedSudokuBoard(), 0, 0));
+        givens = PackedBoard.fromArray(cellArray);
+        game.setSudokuBoard(givens);
+
+        // Das Sudoku wird im Hintergrund gelöst, das Spielfeld ist währenddessen schon bedienbar.
+        // Die Suche startet in onStart().
+        solveExecutor = new SolveExecutor(SOLVE_TIME_BUDGET_MS);
+    }
+
+    /**
+     * Sucht im Hintergrund nach höchstens zwei Lösungen, um falsch eingelesene Sudokus zu erkennen.
+     * Die Listener sind an die Aktivität gebunden und werden in onStop() automatisch entfernt.
+     */
+    private void startSolving() {
+        solveExecutor.solve(givens, 2)
+                .addOnSuccessListener(this, this::onSolved)
+                .addOnFailureListener(this, e -> Log.e(TAG, "Error solving sudoku.", e));
+    }
+
+    /**
+     * Übernimmt das Ergebnis der Suche aus dem SolveExecutor.
+     *
+     * @param result Ergebnis der Suche
+     */
+    private void onSolved(SolveExecutor.SolveResult result) {
+        Log.d(TAG, "Solved in " + result.getElapsedNanos() / 1000 + "us, "
+                + result.getNodesVisited() + " nodes, "
+                + result.getNodesPerSecond() + " nodes/s, timed out: " + result.isTimedOut());
+
+        // Nach einer Zeitüberschreitung ist die Anzahl der Lösungen nur eine Untergrenze. Eine
+        // gefundene Lösung wird übernommen, das Sudoku gilt aber nicht als eindeutig.
+        game.setSolutions(result.getSolutionCount(), result.getFirstSolution(),
+                result.getSecondSolution(), !result.isTimedOut());
+        game.setSolvable(result.getSolutionCount() > 0);
 
         if (!game.getSolvable()) {
-            String text = "Couldn't read Sudoku..";
+            // Ohne Zeitüberschreitung ist sicher, dass es keine Lösung gibt
+            String text = result.isTimedOut() ? TIMEOUT_TEXT : "Couldn't read Sudoku..";
             Toast.makeText(SudokuGameActivity.this, text, Toast.LENGTH_LONG).show();
             finish();
+            return;
         }
+        if (result.getSolutionCount() > 1) {
+            Toast.makeText(SudokuGameActivity.this, AMBIGUOUS_TEXT, Toast.LENGTH_LONG).show();
+        }
+
+        // Der Benutzer könnte das Sudoku bereits gelöst haben, bevor die Lösung feststand
+        checkIfSolved();
+        sudokuBoard.invalidate();
     }
 
     /**
@@ -147,6 +194,10 @@ public class SudokuGameActivity extends AppCompatActivity {
      * Deckt eine ungelöste Zahl auf
      */
     public void hintBtnPressed(View view) {
+        if (!game.isSolutionReady()) {
+            Toast.makeText(this, SOLVING_TEXT, Toast.LENGTH_SHORT).show();
+            return;
+        }
         game.hint();
         checkIfSolved();
         sudokuBoard.invalidate();
@@ -156,8 +207,12 @@ public class SudokuGameActivity extends AppCompatActivity {
      * Zeigt das gelöste Sudoku an
      */
     public void solveBtnPressed(View view) {
+        if (!game.isSolutionReady()) {
+            Toast.makeText(this, SOLVING_TEXT, Toast.LENGTH_SHORT).show();
+        }
+
         // Falls das Sudoku board nicht lösbar sein sollte, gib einen Toast aus
-        if (!game.getSolvable() && Arrays.deepEquals(game.getSudokuBoard(), game.getSolvedSudokuBoard())) {
+        else if (!game.getSolvable() && game.getSudokuBoard().equals(game.getSolvedSudokuBoard())) {
             Toast.makeText(this, ERROR_TEXT, Toast.LENGTH_LONG).show();
         }
 
@@ -176,7 +231,7 @@ public class SudokuGameActivity extends AppCompatActivity {
                     "Yes",
                     new DialogInterface.OnClickListener() {
                         public void onClick(DialogInterface dialog, int id) {
-                            game.setSudokuBoard(game.getSolvedSudokuBoard());
+                            game.revealSolution();
                             //game.isSolved = true;
                             game.setIsSolved(true);
                             timer.stop();
@@ -281,6 +336,8 @@ public class SudokuGameActivity extends AppCompatActivity {
         Log.d(TAG, "ON STOP");
         timeWhenPause = timer.getBase() - SystemClock.elapsedRealtime();
         timer.stop();
+        // Eine noch laufende Suche wird abgebrochen und in onStart() neu gestartet
+        solveExecutor.cancel();
         super.onStop();
     }
 
@@ -289,6 +346,18 @@ public class SudokuGameActivity extends AppCompatActivity {
         Log.d(TAG, "ON START");
         timer.setBase(SystemClock.elapsedRealtime() + timeWhenPause);
         timer.start();
+        if (!game.isSolutionReady()) {
+            startSolving();
+        }
         super.onStart();
     }
+
+    @Override
+    protected void onDestroy() {
+        Log.d(TAG, "ON DESTROY");
+        if (solveExecutor != null) {
+            solveExecutor.close();
+        }
+        super.onDestroy();
+    }
 }
\ No newline at end of file
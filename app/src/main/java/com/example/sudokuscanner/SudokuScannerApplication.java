@@ -0,0 +1,46 @@
+/*
+
+ * SudokuScannerApplication
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+
+/**
+ * Application Klasse der App. Hält alle Objekte, die über mehrere Aktivitäten hinweg geteilt
+ * werden, z.B. den DigitClassifier, dessen Model direkt beim Start der App geladen wird.
+ */
+public class SudokuScannerApplication extends Application {
+
+    private static final String TAG = "SudokuScannerApplication";
+
+    private ClassifierHolder classifierHolder;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        classifierHolder = new ClassifierHolder(this);
+        classifierHolder.preload();
+    }
+
+    public ClassifierHolder getClassifierHolder() {
+        return classifierHolder;
+    }
+
+    /**
+     * Gibt das Model frei, wenn die App im Hintergrund ist und das System Speicher benötigt.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            classifierHolder.trim();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+
+ * SudokuSolver
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+/**
+ * Gemeinsame Schnittstelle aller Solver, damit GameLogic zwischen verschiedenen Algorithmen
+ * wechseln kann.
+ */
+public interface SudokuSolver {
+
+    // Anzahl der Lösungen, die bei countSolutions() gespeichert werden
+    int STORED_SOLUTIONS = 2;
+
+    /**
+     * Löst ein teilweise gefülltes Sudoku. Das übergebene Feld wird nur verändert, wenn eine
+     * Lösung gefunden wurde.
+     *
+     * @param board Sudoku Feld, leere Zellen haben den Wert 0
+     * @return true wenn das Sudoku gelöst werden konnte, false sonst
+     */
+    boolean solve(PackedBoard board);
+
+    /**
+     * Zählt die Lösungen eines Sudokus. Die Suche bricht ab, sobald limit Lösungen gefunden
+     * wurden. Das übergebene Feld wird nicht verändert.
+     *
+     * @param board Sudoku Feld, leere Zellen haben den Wert 0
+     * @param limit Maximale Anzahl an Lösungen, nach denen gesucht wird
+     * @return Anzahl der gefundenen Lösungen, höchstens limit
+     */
+    int countSolutions(PackedBoard board, int limit);
+
+    /**
+     * Gibt eine der zuerst gefundenen Lösungen des letzten countSolutions() Aufrufs zurück. Das
+     * Array gehört dem Solver und wird beim nächsten Aufruf überschrieben.
+     *
+     * @param index 0 für die erste, 1 für die zweite gefundene Lösung
+     * @return Lösung mit 81 Zahlen (index = row * 9 + col)
+     */
+    int[] getSolution(int index);
+}
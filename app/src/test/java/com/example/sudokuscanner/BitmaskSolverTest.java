@@ -0,0 +1,86 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für den BitmaskSolver.
+ */
+public class BitmaskSolverTest {
+
+    private final BitmaskSolver solver = new BitmaskSolver();
+
+    @Test
+    public void solve_uniquePuzzle_writesSolution() {
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE);
+        assertTrue(solver.solve(board));
+        assertEquals(TestBoards.UNIQUE_SOLUTION, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_hardPuzzle_writesSolution() {
+        PackedBoard board = TestBoards.board(TestBoards.HARD);
+        assertTrue(solver.solve(board));
+        assertEquals(TestBoards.HARD_SOLUTION, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_solvedBoard_keepsBoard() {
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE_SOLUTION);
+        assertTrue(solver.solve(board));
+        assertEquals(TestBoards.UNIQUE_SOLUTION, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_emptyBoard_findsValidSolution() {
+        PackedBoard board = TestBoards.board(TestBoards.EMPTY);
+        assertTrue(solver.solve(board));
+        assertValidSolution(board);
+    }
+
+    @Test
+    public void solve_conflictingGivens_leavesBoardUnchanged() {
+        PackedBoard board = TestBoards.board(TestBoards.CONFLICTING_GIVENS);
+        assertFalse(solver.solve(board));
+        assertEquals(TestBoards.CONFLICTING_GIVENS, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_cellWithoutCandidate_leavesBoardUnchanged() {
+        PackedBoard board = TestBoards.board(TestBoards.NO_CANDIDATE);
+        assertFalse(solver.solve(board));
+        assertEquals(TestBoards.NO_CANDIDATE, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_reusedSolver_isIndependentOfPreviousBoard() {
+        assertFalse(solver.solve(TestBoards.board(TestBoards.CONFLICTING_GIVENS)));
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE);
+        assertTrue(solver.solve(board));
+        assertEquals(TestBoards.UNIQUE_SOLUTION, TestBoards.toString(board));
+    }
+
+    static void assertValidSolution(PackedBoard board) {
+        for (int unit = 0; unit < 27; unit++) {
+            int seen = 0;
+            for (int i = 0; i < 9; i++) {
+                int row, col;
+                if (unit < 9) {
+                    row = unit;
+                    col = i;
+                } else if (unit < 18) {
+                    row = i;
+                    col = unit - 9;
+                } else {
+                    row = ((unit - 18) / 3) * 3 + i / 3;
+                    col = ((unit - 18) % 3) * 3 + i % 3;
+                }
+                int value = board.get(row, col);
+                assertTrue("Empty cell (" + row + ", " + col + ")", value != 0);
+                seen |= 1 << value;
+            }
+            assertEquals("Unit " + unit, 0x3FE, seen);
+        }
+    }
+}
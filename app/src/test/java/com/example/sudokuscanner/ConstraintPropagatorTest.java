@@ -0,0 +1,105 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für den ConstraintPropagator.
+ */
+public class ConstraintPropagatorTest {
+
+    // In Box 0 ist die 1 nur in Zelle (0,0) möglich (Hidden Single), Zelle (0,0) hat aber noch
+    // mehrere Kandidaten
+    private static final String HIDDEN_SINGLE =
+            "........." + "...1....." + "......1.." +
+            ".1......." + "........." + "........." +
+            "..1......" + "........." + ".........";
+
+    // Wie HIDDEN_SINGLE, zusätzlich ist in Zelle (8,8) nur noch die 1 möglich (Naked Single)
+    private static final String HIDDEN_AND_NAKED_SINGLE =
+            "........." + "...1....." + "......1.." +
+            ".1......." + "........." + "........." +
+            "..1......" + "........." + "23456789.";
+
+    // In den Zellen (0,7) und (0,8) ist nur noch die 8 möglich, der Widerspruch zeigt sich erst
+    // beim Setzen einer der beiden Zellen
+    private static final String HIDDEN_CONTRADICTION =
+            "1234567.." + "........." + "........." +
+            ".......9." + "........." + "........." +
+            "........9" + "........." + ".........";
+
+    private final ConstraintPropagator propagator = new ConstraintPropagator();
+
+    @Test
+    public void load_conflictingGivens_returnsFalse() {
+        assertFalse(propagator.load(TestBoards.cells(TestBoards.CONFLICTING_GIVENS)));
+    }
+
+    @Test
+    public void load_cellWithoutCandidate_returnsFalse() {
+        assertFalse(propagator.load(TestBoards.cells(TestBoards.NO_CANDIDATE)));
+    }
+
+    @Test
+    public void load_removesGivensFromPeers() {
+        assertTrue(propagator.load(TestBoards.cells(HIDDEN_CONTRADICTION)));
+        assertEquals(1, propagator.getValue(0));
+        assertEquals(0, propagator.getCandidates(0));
+        assertEquals(1 << 7, propagator.getCandidates(7));
+        assertEquals(1 << 7, propagator.getCandidates(8));
+    }
+
+    @Test
+    public void propagate_contradictionAfterAssignment_returnsFalse() {
+        assertTrue(propagator.load(TestBoards.cells(HIDDEN_CONTRADICTION)));
+        assertFalse(propagator.propagate());
+    }
+
+    @Test
+    public void propagate_singlesPuzzle_solvesEveryCell() {
+        assertTrue(propagator.load(TestBoards.cells(TestBoards.UNIQUE)));
+        assertTrue(propagator.propagate());
+        int[] solution = TestBoards.cells(TestBoards.UNIQUE_SOLUTION);
+        for (int cell = 0; cell < 81; cell++) {
+            assertEquals("Cell " + cell, solution[cell], propagator.getValue(cell));
+        }
+    }
+
+    @Test
+    public void propagate_hardPuzzle_onlySetsCorrectDigits() {
+        assertTrue(propagator.load(TestBoards.cells(TestBoards.HARD)));
+        assertTrue(propagator.propagate());
+        int[] solution = TestBoards.cells(TestBoards.HARD_SOLUTION);
+        for (int cell = 0; cell < 81; cell++) {
+            int value = propagator.getValue(cell);
+            if (value != 0) {
+                assertEquals("Cell " + cell, solution[cell], value);
+            } else {
+                // Die Lösung muss unter den übrig gebliebenen Kandidaten sein
+                assertNotEquals("Cell " + cell, 0,
+                        propagator.getCandidates(cell) & (1 << (solution[cell] - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void findSingle_hiddenSingle_returnsCell() {
+        assertTrue(propagator.load(TestBoards.cells(HIDDEN_SINGLE)));
+        assertEquals(0, propagator.findSingle());
+        assertTrue(Integer.bitCount(propagator.getCandidates(0)) > 1);
+        assertEquals(0, propagator.getValue(0));
+    }
+
+    @Test
+    public void findSingle_prefersNakedSingle() {
+        assertTrue(propagator.load(TestBoards.cells(HIDDEN_AND_NAKED_SINGLE)));
+        assertEquals(80, propagator.findSingle());
+    }
+
+    @Test
+    public void findSingle_emptyBoard_returnsMinusOne() {
+        assertTrue(propagator.load(TestBoards.cells(TestBoards.EMPTY)));
+        assertEquals(-1, propagator.findSingle());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für den DancingLinksSolver. Er muss auf allen Feldern dasselbe Ergebnis liefern wie der
+ * BitmaskSolver.
+ */
+public class DancingLinksSolverTest {
+
+    private final DancingLinksSolver solver = new DancingLinksSolver();
+    private final BitmaskSolver reference = new BitmaskSolver();
+
+    @Test
+    public void solve_uniquePuzzle_writesSolution() {
+        PackedBoard board = TestBoards.board(TestBoards.HARD);
+        assertTrue(solver.solve(board));
+        assertEquals(TestBoards.HARD_SOLUTION, TestBoards.toString(board));
+    }
+
+    @Test
+    public void solve_unsolvableBoards_leaveBoardUnchanged() {
+        for (String unsolvable : new String[]{TestBoards.CONFLICTING_GIVENS, TestBoards.NO_CANDIDATE}) {
+            PackedBoard board = TestBoards.board(unsolvable);
+            assertFalse(solver.solve(board));
+            assertEquals(unsolvable, TestBoards.toString(board));
+        }
+    }
+
+    @Test
+    public void solve_emptyBoard_findsValidSolution() {
+        PackedBoard board = TestBoards.board(TestBoards.EMPTY);
+        assertTrue(solver.solve(board));
+        BitmaskSolverTest.assertValidSolution(board);
+    }
+
+    @Test
+    public void solve_agreesWithBitmaskSolver() {
+        String[] boards = {TestBoards.UNIQUE, TestBoards.HARD, TestBoards.TWO_SOLUTIONS,
+                TestBoards.CONFLICTING_GIVENS, TestBoards.NO_CANDIDATE};
+        for (String board : boards) {
+            assertAgreement(board);
+        }
+    }
+
+    @Test
+    public void solve_randomlyThinnedPuzzles_agreeWithBitmaskSolver() {
+        // Entfernt zufällig Zahlen aus einer Lösung, eindeutige und mehrdeutige Felder entstehen
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            char[] board = TestBoards.HARD_SOLUTION.toCharArray();
+            int removed = 30 + random.nextInt(30);
+            for (int i = 0; i < removed; i++) {
+                board[random.nextInt(81)] = '.';
+            }
+            assertAgreement(new String(board));
+        }
+    }
+
+    private void assertAgreement(String board) {
+        int expected = reference.countSolutions(TestBoards.board(board), 2);
+        assertEquals(board, expected, solver.countSolutions(TestBoards.board(board), 2));
+
+        PackedBoard solved = TestBoards.board(board);
+        assertEquals(board, expected > 0, solver.solve(solved));
+        if (expected == 1) {
+            PackedBoard referenceSolved = TestBoards.board(board);
+            reference.solve(referenceSolved);
+            assertEquals(board, referenceSolved, solved);
+        } else if (expected > 1) {
+            BitmaskSolverTest.assertValidSolution(solved);
+            int[] givens = TestBoards.cells(board);
+            for (int i = 0; i < 81; i++) {
+                assertTrue(board, givens[i] == 0 || givens[i] == solved.get(i));
+            }
+        }
+    }
+}
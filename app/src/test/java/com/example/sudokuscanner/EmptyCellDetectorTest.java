@@ -0,0 +1,281 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für den EmptyCellDetector mit den Standardwerten. Die Zellen sind 28x28 Pixel groß wie nach
+ * preprocessCell(): Zahl weiß (#) auf schwarz (.), dünne Striche mit einem Pixel Breite, schräge
+ * Striche hängen nur über die Ecken zusammen.
+ */
+public class EmptyCellDetectorTest {
+
+    private static final int SIZE = 28;
+
+    private static final String[] SEVEN = {
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "...........########.........",
+            "..................#.........",
+            "..................#.........",
+            ".................#..........",
+            "................#...........",
+            "................#...........",
+            "................#...........",
+            "...............#............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            ".............#..............",
+            "............#...............",
+            "............#...............",
+            "............#...............",
+            "...........#................",
+            "..........#.................",
+            "..........#.................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................"
+    };
+
+    private static final String[] SLANTED_ONE = {
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            ".................#..........",
+            ".................#..........",
+            "................#...........",
+            "................#...........",
+            "................#...........",
+            "...............#............",
+            "...............#............",
+            "...............#............",
+            "..............#.............",
+            "..............#.............",
+            ".............#..............",
+            ".............#..............",
+            ".............#..............",
+            "............#...............",
+            "............#...............",
+            "............#...............",
+            "...........#................",
+            "...........#................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................"
+    };
+
+    private static final String[] ONE = {
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "..............#.............",
+            ".............##.............",
+            "............#.#.............",
+            "...........#..#.............",
+            "..........#...#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "..............#.............",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................"
+    };
+
+    private static final String[] FOUR = {
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "................#...........",
+            "...............#............",
+            "...............#............",
+            "..............#.............",
+            ".............#...#..........",
+            "............#....#..........",
+            "............#....#..........",
+            "...........#.....#..........",
+            "..........#......#..........",
+            ".........#.......#..........",
+            ".........#.......#..........",
+            "........#############.......",
+            ".................#..........",
+            ".................#..........",
+            ".................#..........",
+            ".................#..........",
+            ".................#..........",
+            ".................#..........",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................"
+    };
+
+    private static final String[] BORDER_REMNANT = {
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "............................",
+            "..########################..",
+            "............................"
+    };
+
+    private static final String[] SPECKLES = {
+            "............................",
+            "............................",
+            "............................",
+            ".............#..............",
+            "....#.......................",
+            "....................#.......",
+            "............................",
+            ".........#..................",
+            ".....#......................",
+            "...................#........",
+            "........................#...",
+            "...#........................",
+            "..............#.............",
+            ".....................#......",
+            "..........#.................",
+            "..................#.........",
+            ".......................#....",
+            "............................",
+            "......#.....................",
+            "............................",
+            "......................#.....",
+            "........#...................",
+            "............................",
+            "............#...............",
+            "................#........#..",
+            ".......#....................",
+            "............................",
+            "............................"
+    };
+
+    private final EmptyCellDetector detector = new EmptyCellDetector(SIZE, SIZE);
+
+    @Test
+    public void emptyCell_hasNoDigit() {
+        assertFalse(detector.hasDigit(new byte[SIZE * SIZE]));
+    }
+
+    @Test
+    public void thinDigits_areDetected() {
+        assertTrue(detector.hasDigit(pixels(ONE)));
+        assertTrue(detector.hasDigit(pixels(FOUR)));
+        assertTrue(detector.hasDigit(pixels(SEVEN)));
+    }
+
+    @Test
+    public void diagonalStroke_isOneComponent() {
+        // Nur über die Ecken verbunden, in der 4er Nachbarschaft wären es lauter einzelne Pixel
+        assertTrue(detector.hasDigit(pixels(SLANTED_ONE)));
+    }
+
+    @Test
+    public void scatteredSpeckles_haveNoDigit() {
+        // Genug Pixel für minInkRatio, aber kein Bereich ist groß genug
+        assertFalse(detector.hasDigit(pixels(SPECKLES)));
+    }
+
+    @Test
+    public void borderRemnant_hasNoDigit() {
+        // Groß genug, aber der Schwerpunkt liegt am unteren Rand
+        assertFalse(detector.hasDigit(pixels(BORDER_REMNANT)));
+    }
+
+    @Test
+    public void faintDigit_belowInkThreshold_hasNoDigit() {
+        byte[] faint = pixels(SEVEN);
+        for (int i = 0; i < faint.length; i++) {
+            if (faint[i] != 0) {
+                faint[i] = (byte) 127;
+            }
+        }
+        assertFalse(detector.hasDigit(faint));
+
+        detector.setInkThreshold(100);
+        assertTrue(detector.hasDigit(faint));
+    }
+
+    @Test
+    public void smallBlob_belowMinInkRatio_hasNoDigit() {
+        // 3x3 Pixel in der Mitte sind weniger als 2% der Zelle
+        byte[] blob = new byte[SIZE * SIZE];
+        for (int y = 13; y < 16; y++) {
+            Arrays.fill(blob, y * SIZE + 13, y * SIZE + 16, (byte) 255);
+        }
+        assertFalse(detector.hasDigit(blob));
+
+        detector.setMinInkRatio(0.01f);
+        detector.setMinComponentPixels(9);
+        assertTrue(detector.hasDigit(blob));
+    }
+
+    @Test
+    public void repeatedCalls_doNotKeepState() {
+        assertTrue(detector.hasDigit(pixels(SEVEN)));
+        assertFalse(detector.hasDigit(pixels(SPECKLES)));
+        assertTrue(detector.hasDigit(pixels(SLANTED_ONE)));
+        assertFalse(detector.hasDigit(new byte[SIZE * SIZE]));
+    }
+
+    private static byte[] pixels(String[] rows) {
+        byte[] pixels = new byte[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                pixels[y * SIZE + x] = rows[y].charAt(x) == '#' ? (byte) 255 : 0;
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.sudokuscanner;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für die laufenden Zähler in GameLogic. Alle Züge gehen wie in der App über
+ * setNumberPos(), die ausgewählte Reihe und Spalte beginnen dort bei 1.
+ */
+public class GameLogicTest {
+
+    private GameLogic logic;
+
+    @Before
+    public void setUp() {
+        logic = new GameLogic();
+        logic.setSudokuBoard(TestBoards.board(TestBoards.UNIQUE));
+    }
+
+    private void move(int row, int col, int num) {
+        logic.setSelectedRow(row + 1);
+        logic.setSelectedCol(col + 1);
+        logic.setNumberPos(num);
+    }
+
+    @Test
+    public void setSudokuBoard_countsGivens() {
+        assertEquals(30, logic.getFilledCount());
+        assertEquals(0, logic.getConflictCount());
+        assertFalse(logic.checkIfSolved());
+    }
+
+    @Test
+    public void conflictInRow_isCountedAndUndone() {
+        // In Reihe 0 steht bereits eine 5 in Spalte 0, Spalte 2 liegt in derselben Box
+        move(0, 2, 5);
+        assertEquals(31, logic.getFilledCount());
+        assertEquals(2, logic.getConflictCount());
+        assertEquals(1, logic.getUnitConflicts(0));
+        assertEquals(1, logic.getUnitConflicts(18));
+        assertTrue(logic.isConflictCell(0, 0));
+        assertTrue(logic.isConflictCell(0, 2));
+        assertFalse(logic.isConflictCell(0, 1));
+
+        move(0, 2, 0);
+        assertEquals(30, logic.getFilledCount());
+        assertEquals(0, logic.getConflictCount());
+        assertEquals(0, logic.getUnitConflicts(0));
+        assertFalse(logic.isConflictCell(0, 0));
+    }
+
+    @Test
+    public void overwritingConflict_removesIt() {
+        move(0, 2, 5);
+        move(0, 2, 4);
+        assertEquals(31, logic.getFilledCount());
+        assertEquals(0, logic.getConflictCount());
+    }
+
+    @Test
+    public void tripleDigitInRow_countsTwoConflicts() {
+        move(0, 2, 5);
+        move(0, 6, 5);
+        // Reihe 0: drei 5en, Box 0: zwei 5en
+        assertEquals(2, logic.getUnitConflicts(0));
+        assertEquals(1, logic.getUnitConflicts(18));
+        assertEquals(3, logic.getConflictCount());
+
+        move(0, 6, 0);
+        assertEquals(1, logic.getUnitConflicts(0));
+        assertEquals(2, logic.getConflictCount());
+    }
+
+    @Test
+    public void solvedCounter_followsMovesAndUndo() {
+        assertEquals(1, logic.countSolutions(2));
+        int[] solution = TestBoards.cells(TestBoards.UNIQUE_SOLUTION);
+        int[] givens = TestBoards.cells(TestBoards.UNIQUE);
+
+        int last = -1;
+        for (int cell = 0; cell < 81; cell++) {
+            if (givens[cell] == 0) {
+                assertFalse(logic.checkIfSolved());
+                move(cell / 9, cell % 9, solution[cell]);
+                last = cell;
+            }
+        }
+        assertTrue(logic.checkIfSolved());
+        assertEquals(81, logic.getFilledCount());
+
+        // Zug rückgängig machen, danach mit einer falschen Zahl und wieder richtig setzen
+        move(last / 9, last % 9, 0);
+        assertFalse(logic.checkIfSolved());
+        move(last / 9, last % 9, solution[last] % 9 + 1);
+        assertFalse(logic.checkIfSolved());
+        move(last / 9, last % 9, solution[last]);
+        assertTrue(logic.checkIfSolved());
+    }
+
+    @Test
+    public void movesBeforeSolution_areCountedOnceSolutionArrives() {
+        move(0, 2, 4);
+        assertFalse(logic.checkIfSolved());
+
+        logic.countSolutions(2);
+        logic.revealSolution();
+        assertTrue(logic.checkIfSolved());
+        assertEquals(0, logic.getConflictCount());
+    }
+
+    @Test
+    public void setNumberPos_withoutSelection_doesNothing() {
+        logic.setSelectedRow(-1);
+        logic.setSelectedCol(-1);
+        logic.setNumberPos(5);
+        assertEquals(30, logic.getFilledCount());
+    }
+
+    @Test
+    public void setNumberPos_solvedGame_doesNothing() {
+        logic.setIsSolved(true);
+        move(0, 2, 4);
+        assertEquals(30, logic.getFilledCount());
+    }
+
+    @Test
+    public void hint_withoutSolution_returnsFalse() {
+        assertFalse(logic.hint());
+        assertEquals(30, logic.getFilledCount());
+    }
+
+    @Test
+    public void hint_correctsWrongCellFirst() {
+        logic.countSolutions(2);
+        move(0, 2, 1);
+        assertTrue(logic.hint());
+        assertEquals(4, logic.getSudokuBoard().get(0, 2));
+        assertEquals(31, logic.getFilledCount());
+    }
+
+    @Test
+    public void logicalHints_revealNextDeducibleCellUntilSolved() {
+        logic.countSolutions(2);
+        ConstraintPropagator propagator = new ConstraintPropagator();
+        int[] cells = new int[81];
+
+        int hints = 0;
+        while (!logic.checkIfSolved()) {
+            for (int cell = 0; cell < 81; cell++) {
+                cells[cell] = logic.getSudokuBoard().get(cell);
+            }
+            assertTrue(propagator.load(cells));
+            int expected = propagator.findSingle();
+            assertNotEquals(-1, expected);
+
+            assertTrue(logic.hint());
+            hints++;
+            assertEquals(TestBoards.cells(TestBoards.UNIQUE_SOLUTION)[expected],
+                    logic.getSudokuBoard().get(expected));
+            assertEquals(30 + hints, logic.getFilledCount());
+        }
+        assertEquals(51, hints);
+        assertFalse(logic.hint());
+    }
+
+    @Test
+    public void hintsWithoutLogic_revealLastOpenCell() {
+        logic.setLogicalHints(false);
+        logic.countSolutions(2);
+        assertTrue(logic.hint());
+        // Die letzte leere Zelle ist (8,6)
+        assertEquals(1, logic.getSudokuBoard().get(8, 6));
+    }
+
+    @Test
+    public void hints_neverRevealAmbiguousCells() {
+        logic.setSudokuBoard(TestBoards.board(TestBoards.TWO_SOLUTIONS));
+        assertEquals(2, logic.countSolutions(2));
+        assertFalse(logic.hint());
+        assertEquals(77, logic.getFilledCount());
+    }
+
+    @Test
+    public void incompleteSearch_keepsFirstSolutionButIsNotUnique() {
+        // Nach einer Zeitüberschreitung ist eine zweite Lösung nicht ausgeschlossen
+        logic.setSolutions(1, TestBoards.cells(TestBoards.UNIQUE_SOLUTION), null, false);
+        assertTrue(logic.isSolutionReady());
+        assertFalse(logic.isUnique());
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                assertFalse(logic.isAmbiguousCell(row, col));
+            }
+        }
+
+        logic.revealSolution();
+        assertTrue(logic.checkIfSolved());
+
+        logic.setSolutions(1, TestBoards.cells(TestBoards.UNIQUE_SOLUTION), null);
+        assertTrue(logic.isUnique());
+    }
+
+    @Test
+    public void noSolution_isNeverSolved() {
+        // Das gelöste Feld enthält ohne Lösung nur die Vorgaben, ein volles Feld mit lauter
+        // Konflikten darf trotzdem nicht als gelöst gelten
+        logic.setSudokuBoard(TestBoards.board(TestBoards.UNIQUE_SOLUTION.replace('9', '1')));
+        logic.setSolutions(0, null, null);
+        assertFalse(logic.isSolutionReady());
+        assertFalse(logic.checkIfSolved());
+        assertFalse(logic.hint());
+    }
+}
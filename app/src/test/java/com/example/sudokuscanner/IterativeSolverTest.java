@@ -0,0 +1,85 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für den IterativeSolver, vor allem das Pausieren und Fortsetzen der Suche.
+ */
+public class IterativeSolverTest {
+
+    private final IterativeSolver solver = new IterativeSolver();
+
+    @Test
+    public void resume_withoutLimit_solvesHardPuzzle() {
+        assertTrue(solver.start(TestBoards.board(TestBoards.HARD)));
+        assertEquals(IterativeSolver.SOLVED, solver.resume(Long.MAX_VALUE));
+        assertEquals(TestBoards.HARD_SOLUTION, TestBoards.toString(solver.getSolution(0)));
+    }
+
+    @Test
+    public void resume_smallSteps_findsSameSolution() {
+        assertTrue(solver.start(TestBoards.board(TestBoards.HARD)));
+        assertEquals(IterativeSolver.SOLVED, solver.resume(Long.MAX_VALUE));
+        long nodes = solver.getNodesVisited();
+
+        IterativeSolver paused = new IterativeSolver();
+        assertTrue(paused.start(TestBoards.board(TestBoards.HARD)));
+        assertEquals(IterativeSolver.PAUSED, paused.resume(1));
+        assertEquals(IterativeSolver.SOLVED, resumeInSteps(paused));
+        assertEquals(TestBoards.HARD_SOLUTION, TestBoards.toString(paused.getSolution(0)));
+        // Durch die Pausen darf kein Knoten doppelt oder gar nicht besucht werden
+        assertEquals(nodes, paused.getNodesVisited());
+    }
+
+    @Test
+    public void resume_zeroBudget_pausesWithoutProgress() {
+        assertTrue(solver.start(TestBoards.board(TestBoards.HARD)));
+        assertEquals(IterativeSolver.PAUSED, solver.resume(0));
+        assertEquals(0, solver.getNodesVisited());
+        assertEquals(IterativeSolver.SOLVED, solver.resume(Long.MAX_VALUE));
+        assertEquals(TestBoards.HARD_SOLUTION, TestBoards.toString(solver.getSolution(0)));
+    }
+
+    @Test
+    public void resume_afterSolution_continuesWithNextSolution() {
+        assertTrue(solver.start(TestBoards.board(TestBoards.TWO_SOLUTIONS)));
+        assertEquals(IterativeSolver.SOLVED, resumeInSteps(solver));
+        assertEquals(1, solver.getSolutionCount());
+        assertEquals(IterativeSolver.SOLVED, resumeInSteps(solver));
+        assertEquals(2, solver.getSolutionCount());
+        assertNotEquals(TestBoards.toString(solver.getSolution(0)),
+                TestBoards.toString(solver.getSolution(1)));
+        assertEquals(IterativeSolver.EXHAUSTED, solver.resume(Long.MAX_VALUE));
+        assertEquals(2, solver.getSolutionCount());
+    }
+
+    @Test
+    public void start_contradictoryBoard_returnsFalse() {
+        assertFalse(solver.start(TestBoards.board(TestBoards.CONFLICTING_GIVENS)));
+        assertEquals(IterativeSolver.EXHAUSTED, solver.resume(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void solve_matchesBitmaskSolver() {
+        for (String board : new String[]{TestBoards.UNIQUE, TestBoards.HARD, TestBoards.EMPTY}) {
+            PackedBoard iterative = TestBoards.board(board);
+            PackedBoard recursive = TestBoards.board(board);
+            assertTrue(solver.solve(iterative));
+            assertTrue(new BitmaskSolver().solve(recursive));
+            assertEquals(board, recursive, iterative);
+        }
+    }
+
+    /**
+     * Setzt die Suche in Schritten von einem Knoten fort, bis sie nicht mehr pausiert.
+     */
+    private static int resumeInSteps(IterativeSolver solver) {
+        int result;
+        do {
+            result = solver.resume(1);
+        } while (result == IterativeSolver.PAUSED);
+        return result;
+    }
+}
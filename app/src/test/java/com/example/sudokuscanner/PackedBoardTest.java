@@ -0,0 +1,93 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für das gepackte Sudoku Feld.
+ */
+public class PackedBoardTest {
+
+    @Test
+    public void newBoard_isEmpty() {
+        PackedBoard board = new PackedBoard();
+        for (int cell = 0; cell < 81; cell++) {
+            assertEquals(0, board.get(cell));
+        }
+    }
+
+    @Test
+    public void set_everyCellAndDigit_doesNotTouchNeighbours() {
+        PackedBoard board = new PackedBoard();
+        for (int cell = 0; cell < 81; cell++) {
+            for (int digit = 0; digit <= 9; digit++) {
+                board.set(cell, digit);
+                assertEquals(digit, board.get(cell));
+            }
+            // Zellen an Wortgrenzen (15/16, 31/32, ...) dürfen sich nicht gegenseitig überschreiben
+            board.set(cell, cell % 9 + 1);
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            assertEquals(cell % 9 + 1, board.get(cell));
+        }
+    }
+
+    @Test
+    public void rowColAccess_matchesCellIndex() {
+        PackedBoard board = new PackedBoard();
+        board.set(4, 7, 6);
+        assertEquals(6, board.get(4 * 9 + 7));
+        assertEquals(6, board.get(4, 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void set_invalidDigit_throws() {
+        new PackedBoard().set(0, 10);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void get_invalidColumn_throws() {
+        new PackedBoard().get(0, 9);
+    }
+
+    @Test
+    public void arrayConversion_roundTrips() {
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE);
+        int[][] grid = board.toArray();
+        assertEquals(5, grid[0][0]);
+        assertEquals(9, grid[8][8]);
+        assertEquals(board, PackedBoard.fromArray(grid));
+    }
+
+    @Test
+    public void equals_comparesContent() {
+        PackedBoard a = TestBoards.board(TestBoards.UNIQUE);
+        PackedBoard b = TestBoards.board(TestBoards.UNIQUE);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.set(80, 1);
+        assertNotEquals(a, b);
+        assertNotEquals(a, null);
+        assertNotEquals(a, TestBoards.UNIQUE);
+    }
+
+    @Test
+    public void copy_isIndependent() {
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE);
+        PackedBoard copy = board.copy();
+        assertEquals(board, copy);
+
+        copy.set(2, 4);
+        assertEquals(0, board.get(2));
+        assertEquals(4, copy.get(2));
+    }
+
+    @Test
+    public void copyFrom_overwritesAllCells() {
+        PackedBoard board = TestBoards.board(TestBoards.UNIQUE_SOLUTION);
+        board.copyFrom(TestBoards.board(TestBoards.EMPTY));
+        assertEquals(TestBoards.EMPTY, TestBoards.toString(board));
+    }
+}
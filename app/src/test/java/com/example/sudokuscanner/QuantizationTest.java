@@ -0,0 +1,85 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für die Umrechnung von Ein- und Ausgabe des quantisierten Models. Die Parameter
+ * entsprechen denen, die der TensorflowLite Konverter für Bilder im Bereich [0..1] und eine
+ * Softmax Ausgabe erzeugt.
+ */
+public class QuantizationTest {
+
+    private static final float INPUT_SCALE = 1 / 255f;
+    private static final float OUTPUT_SCALE = 1 / 256f;
+
+    @Test
+    public void quantizePixels_uint8WithUnitScale_isIdentity() {
+        byte[] quantized = new byte[256];
+        assertTrue(Quantization.quantizePixels(true, INPUT_SCALE, 0, quantized));
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i, quantized[i] & 0xFF);
+        }
+    }
+
+    @Test
+    public void quantizePixels_int8_shiftsByZeroPoint() {
+        byte[] quantized = new byte[256];
+        assertFalse(Quantization.quantizePixels(false, INPUT_SCALE, -128, quantized));
+        for (int i = 0; i < 256; i++) {
+            assertEquals(i - 128, quantized[i]);
+        }
+    }
+
+    @Test
+    public void quantizePixels_clampsToTypeRange() {
+        byte[] quantized = new byte[256];
+        // Mit halber Schrittweite passen nur die Pixel 0-63 in den int8 Bereich
+        assertFalse(Quantization.quantizePixels(false, INPUT_SCALE / 2, 0, quantized));
+        assertEquals(0, quantized[0]);
+        assertEquals(126, quantized[63]);
+        assertEquals(127, quantized[64]);
+        assertEquals(127, quantized[255]);
+
+        assertFalse(Quantization.quantizePixels(true, INPUT_SCALE / 2, 0, quantized));
+        assertEquals(254, quantized[127] & 0xFF);
+        assertEquals(255, quantized[128] & 0xFF);
+        assertEquals(255, quantized[255] & 0xFF);
+    }
+
+    @Test
+    public void quantizePixels_int8_roundTripsWithinHalfStep() {
+        byte[] quantized = new byte[256];
+        Quantization.quantizePixels(false, INPUT_SCALE, -128, quantized);
+        for (int i = 0; i < 256; i++) {
+            float value = Quantization.dequantize(quantized[i], false, INPUT_SCALE, -128);
+            assertEquals(Quantization.NORMALIZED[i], value, INPUT_SCALE / 2);
+        }
+    }
+
+    @Test
+    public void dequantize_readsUint8Unsigned() {
+        assertEquals(255 / 256f, Quantization.dequantize((byte) 0xFF, true, OUTPUT_SCALE, 0), 1e-6f);
+        assertEquals(0f, Quantization.dequantize((byte) 0, true, OUTPUT_SCALE, 0), 1e-6f);
+    }
+
+    @Test
+    public void dequantize_readsInt8Signed() {
+        assertEquals(0f, Quantization.dequantize((byte) -128, false, OUTPUT_SCALE, -128), 1e-6f);
+        assertEquals(255 / 256f, Quantization.dequantize((byte) 127, false, OUTPUT_SCALE, -128),
+                1e-6f);
+        assertEquals(127 / 256f, Quantization.dequantize((byte) -1, false, OUTPUT_SCALE, -128),
+                1e-6f);
+    }
+
+    @Test
+    public void dequantize_keepsOrderOfScores() {
+        // 0x80 ist als uint8 größer als 0x7F, als int8 aber kleiner. Ein falsch gelesenes
+        // Vorzeichen würde die erkannte Zahl vertauschen.
+        assertTrue(Quantization.dequantize((byte) 0x80, true, OUTPUT_SCALE, 0)
+                > Quantization.dequantize((byte) 0x7F, true, OUTPUT_SCALE, 0));
+        assertTrue(Quantization.dequantize((byte) 0x80, false, OUTPUT_SCALE, -128)
+                < Quantization.dequantize((byte) 0x7F, false, OUTPUT_SCALE, -128));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.sudokuscanner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests für countSolutions() aller Solver und die Markierung mehrdeutiger Zellen in GameLogic.
+ */
+@RunWith(Parameterized.class)
+public class SolutionCountTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> solvers() {
+        return Arrays.asList(new Object[][]{
+                {"bitmask", new BitmaskSolver()},
+                {"dlx", new DancingLinksSolver()},
+                {"iterative", new IterativeSolver()}
+        });
+    }
+
+    private final SudokuSolver solver;
+
+    public SolutionCountTest(String name, SudokuSolver solver) {
+        this.solver = solver;
+    }
+
+    @Test
+    public void countSolutions_uniquePuzzle_returnsOne() {
+        assertEquals(1, solver.countSolutions(TestBoards.board(TestBoards.UNIQUE), 2));
+        assertEquals(TestBoards.UNIQUE_SOLUTION, TestBoards.toString(solver.getSolution(0)));
+    }
+
+    @Test
+    public void countSolutions_twoSolutions_storesBoth() {
+        assertEquals(2, solver.countSolutions(TestBoards.board(TestBoards.TWO_SOLUTIONS), 10));
+
+        String first = TestBoards.toString(solver.getSolution(0));
+        String second = TestBoards.toString(solver.getSolution(1));
+        assertNotEquals(first, second);
+        assertTrue(first.equals(TestBoards.UNIQUE_SOLUTION) || second.equals(TestBoards.UNIQUE_SOLUTION));
+    }
+
+    @Test
+    public void countSolutions_stopsAtLimit() {
+        assertEquals(1, solver.countSolutions(TestBoards.board(TestBoards.TWO_SOLUTIONS), 1));
+        assertEquals(2, solver.countSolutions(TestBoards.board(TestBoards.EMPTY), 2));
+        assertEquals(0, solver.countSolutions(TestBoards.board(TestBoards.UNIQUE), 0));
+    }
+
+    @Test
+    public void countSolutions_contradictoryBoards_returnZero() {
+        assertEquals(0, solver.countSolutions(TestBoards.board(TestBoards.CONFLICTING_GIVENS), 2));
+        assertEquals(0, solver.countSolutions(TestBoards.board(TestBoards.NO_CANDIDATE), 2));
+    }
+
+    @Test
+    public void countSolutions_doesNotChangeBoard() {
+        PackedBoard board = TestBoards.board(TestBoards.TWO_SOLUTIONS);
+        solver.countSolutions(board, 2);
+        assertEquals(TestBoards.TWO_SOLUTIONS, TestBoards.toString(board));
+    }
+
+    @Test
+    public void gameLogic_twoSolutions_marksSwappableCells() {
+        GameLogic logic = new GameLogic();
+        logic.setSolver(solver);
+        logic.setSudokuBoard(TestBoards.board(TestBoards.TWO_SOLUTIONS));
+
+        assertEquals(2, logic.countSolutions(2));
+        assertFalse(logic.isUnique());
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                boolean swappable = (row == 3 || row == 4) && (col == 5 || col == 8);
+                assertEquals("(" + row + ", " + col + ")", swappable, logic.isAmbiguousCell(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void gameLogic_uniquePuzzle_hasNoAmbiguousCells() {
+        GameLogic logic = new GameLogic();
+        logic.setSolver(solver);
+        logic.setSudokuBoard(TestBoards.board(TestBoards.UNIQUE));
+
+        assertEquals(1, logic.countSolutions(2));
+        assertTrue(logic.isUnique());
+        assertEquals(TestBoards.UNIQUE_SOLUTION, TestBoards.toString(logic.getSolvedSudokuBoard()));
+        for (int cell = 0; cell < 81; cell++) {
+            assertFalse(logic.isAmbiguousCell(cell / 9, cell % 9));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.sudokuscanner;
+
+/**
+ * Sudoku Felder für die Unit Tests. Alle Felder sind als 81 Zeichen (index = row * 9 + col)
+ * angegeben, leere Zellen als '.'.
+ */
+final class TestBoards {
+
+    // Eindeutig lösbares Sudoku (Wikipedia)
+    static final String UNIQUE =
+            "53..7...." + "6..195..." + ".98....6." +
+            "8...6...3" + "4..8.3..1" + "7...2...6" +
+            ".6....28." + "...419..5" + "....8..79";
+    static final String UNIQUE_SOLUTION =
+            "534678912" + "672195348" + "198342567" +
+            "859761423" + "426853791" + "713924856" +
+            "961537284" + "287419635" + "345286179";
+
+    // Schweres, eindeutig lösbares Sudoku, das ohne Raten nicht lösbar ist
+    static final String HARD =
+            "8........" + "..36....." + ".7..9.2.." +
+            ".5...7..." + "....457.." + "...1...3." +
+            "..1....68" + "..85...1." + ".9....4..";
+    static final String HARD_SOLUTION =
+            "812753649" + "943682175" + "675491283" +
+            "154237896" + "369845721" + "287169534" +
+            "521974368" + "438526917" + "796318452";
+
+    // Lösung von UNIQUE ohne die Zellen (3,5), (3,8), (4,5) und (4,8). Die Zahlen 1 und 3 lassen
+    // sich in diesem Rechteck tauschen, das Feld hat daher genau zwei Lösungen.
+    static final String TWO_SOLUTIONS =
+            "534678912" + "672195348" + "198342567" +
+            "85976.42." + "42685.79." + "713924856" +
+            "961537284" + "287419635" + "345286179";
+
+    // Zwei 5en in der ersten Reihe
+    static final String CONFLICTING_GIVENS =
+            "5...5...." + "........." + "........." +
+            "........." + "........." + "........." +
+            "........." + "........." + ".........";
+
+    // Die Vorgaben widersprechen sich nicht direkt, aber in Zelle (0,8) ist keine Zahl möglich:
+    // Reihe 0 enthält 1-8 und Spalte 8 die 9
+    static final String NO_CANDIDATE =
+            "12345678." + "........." + "........." +
+            "........." + "........." + "........9" +
+            "........." + "........." + ".........";
+
+    static final String EMPTY =
+            "........." + "........." + "........." +
+            "........." + "........." + "........." +
+            "........." + "........." + ".........";
+
+    private TestBoards() {
+    }
+
+    static int[] cells(String board) {
+        int[] cells = new int[81];
+        for (int i = 0; i < 81; i++) {
+            char c = board.charAt(i);
+            cells[i] = c == '.' ? 0 : c - '0';
+        }
+        return cells;
+    }
+
+    static PackedBoard board(String board) {
+        PackedBoard packed = new PackedBoard();
+        packed.setCells(cells(board));
+        return packed;
+    }
+
+    static String toString(PackedBoard board) {
+        StringBuilder builder = new StringBuilder(81);
+        for (int i = 0; i < 81; i++) {
+            int value = board.get(i);
+            builder.append(value == 0 ? '.' : (char) ('0' + value));
+        }
+        return builder.toString();
+    }
+
+    static String toString(int[] cells) {
+        StringBuilder builder = new StringBuilder(81);
+        for (int value : cells) {
+            builder.append(value == 0 ? '.' : (char) ('0' + value));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+
+ * BacktrackingBenchmark
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleichswert für das ursprüngliche Backtracking aus GameLogic.solveSudoku(grid, row, col).
+ * Es läuft nur auf den leichten Sudokus, da einzelne Sudokus aus "hardest" damit mehrere
+ * Sekunden dauern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BacktrackingBenchmark {
+
+    private static final int N = 9;
+
+    @Param({"easy"})
+    public String corpus;
+
+    private int[][][] puzzles;
+    private int[][] grid;
+    private GameLogic game;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        PackedBoard[] boards = PuzzleCorpus.load(corpus);
+        puzzles = new int[boards.length][][];
+        for (int i = 0; i < boards.length; i++) {
+            puzzles[i] = boards[i].toArray();
+        }
+        grid = new int[N][N];
+        game = new GameLogic();
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean solve() {
+        int[][] puzzle = puzzles[next];
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        for (int row = 0; row < N; row++) {
+            System.arraycopy(puzzle[row], 0, grid[row], 0, N);
+        }
+        return game.solveSudoku(grid, 0, 0);
+    }
+}
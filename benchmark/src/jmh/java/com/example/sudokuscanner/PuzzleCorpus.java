@@ -0,0 +1,65 @@
+/*
+
+ * PuzzleCorpus
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liest die Sudoku Sammlungen aus src/jmh/resources/puzzles ein. Jede Zeile enthält ein Sudoku mit
+ * 81 Zeichen (index = row * 9 + col), leere Zellen sind 0 oder '.', Zeilen mit '#' sind Kommentare.
+ */
+final class PuzzleCorpus {
+
+    private static final int CELLS = 81;
+
+    private PuzzleCorpus() {
+    }
+
+    /**
+     * @param name Name der Sammlung ohne Endung, z.B. "easy", "seventeen" oder "hardest"
+     * @return Alle Sudokus der Sammlung
+     */
+    static PackedBoard[] load(String name) throws IOException {
+        String resource = "/puzzles/" + name + ".txt";
+        InputStream in = PuzzleCorpus.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Corpus not found: " + resource);
+        }
+
+        List<PackedBoard> boards = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.length() != CELLS) {
+                    throw new IOException("Invalid puzzle in " + resource + ": " + line);
+                }
+
+                PackedBoard board = new PackedBoard();
+                for (int i = 0; i < CELLS; i++) {
+                    char c = line.charAt(i);
+                    board.set(i, c == '.' ? 0 : c - '0');
+                }
+                boards.add(board);
+            }
+        }
+        return boards.toArray(new PackedBoard[0]);
+    }
+}
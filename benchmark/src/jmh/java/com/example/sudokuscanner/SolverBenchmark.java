@@ -0,0 +1,108 @@
+/*
+
+ * SolverBenchmark
+ *
+ * Version 1.0
+ *
+ * Author: Jan Lorenzen
+ */
+
+package com.example.sudokuscanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst GameLogic.solveSudoku() und die Eindeutigkeitsprüfung mit jedem Solver auf den drei
+ * Sammlungen. Pro Aufruf wird das nächste Sudoku der Sammlung gelöst, sodass AverageTime den
+ * Mittelwert über die Sammlung und SampleTime die Verteilung inklusive der schwersten Sudokus
+ * (p0.99, p1.00) liefert. Mit dem gc Profiler (siehe build.gradle) wird zusätzlich
+ * gc.alloc.rate.norm, also die allokierten Bytes pro Lösungsvorgang, ausgegeben.
+ * Neue Solver werden in createSolver() und im Parameter engine ergänzt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"easy", "seventeen", "hardest"})
+    public String corpus;
+
+    @Param({"bitmask", "iterative", "dancinglinks"})
+    public String engine;
+
+    private PackedBoard[] puzzles;
+    private PackedBoard board;
+    private GameLogic game;
+    private SudokuSolver solver;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        puzzles = PuzzleCorpus.load(corpus);
+        board = new PackedBoard();
+        solver = createSolver(engine);
+        game = new GameLogic();
+        game.setSolver(solver);
+        next = 0;
+
+        // Stellt sicher, dass nur gültige Sudokus gemessen werden
+        for (PackedBoard puzzle : puzzles) {
+            if (solver.countSolutions(puzzle, 2) != 1) {
+                throw new IllegalStateException("Puzzle in " + corpus + " is not unique");
+            }
+        }
+    }
+
+    private static SudokuSolver createSolver(String engine) {
+        switch (engine) {
+            case "bitmask":
+                return new BitmaskSolver();
+            case "iterative":
+                return new IterativeSolver();
+            case "dancinglinks":
+                return new DancingLinksSolver();
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    private PackedBoard nextPuzzle() {
+        PackedBoard puzzle = puzzles[next];
+        next = next + 1 == puzzles.length ? 0 : next + 1;
+        return puzzle;
+    }
+
+    /**
+     * Löst ein Sudoku wie der Solve Button. Das Kopieren des Feldes kostet nur 6 longs.
+     */
+    @Benchmark
+    public boolean solve() {
+        board.copyFrom(nextPuzzle());
+        return game.solveSudoku(board);
+    }
+
+    /**
+     * Sucht nach höchstens zwei Lösungen wie der SolveExecutor nach dem Einlesen.
+     */
+    @Benchmark
+    public int countSolutions() {
+        return solver.countSolutions(nextPuzzle(), 2);
+    }
+}